@@ -0,0 +1,44 @@
+package code_generation.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Turns on the steady-state benchmark of a solution. After the cases have been checked, every case is run
+ * {@link #warmup()} times to let the JIT compile the hot code and then {@link #measure()} more times;
+ * only the measured runs are reported, as mean, standard deviation and minimum.
+ * <pre>
+ * &#64;Benchmark(warmup = 10, measure = 20, fork = true)
+ * public int[] twoSum(int[] nums, int target) { ... }
+ * </pre>
+ * @author wuxin0011
+ * @since 1.0
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Benchmark {
+
+    /**
+     * Specifies the number of runs of every case that are not measured.
+     *
+     * @return the warm-up iterations, default is 5
+     */
+    int warmup() default 5;
+
+    /**
+     * Specifies the number of measured runs of every case.
+     *
+     * @return the measured iterations, default is 10
+     */
+    int measure() default 10;
+
+    /**
+     * Determines whether the benchmark runs in a fresh JVM, so the profile collected while checking
+     * the cases (and by other solutions) does not shape the compiled code.
+     *
+     * @return true to fork a new JVM, default is false
+     */
+    boolean fork() default false;
+}
@@ -50,4 +50,48 @@ public @interface TestCaseGroup {
      * }
      */
     boolean use() default true;
+
+    /**
+     * Determines whether the cases of this group may run in parallel.
+     * Every case gets its own solution instance, so this is only safe for solutions
+     * that do not share static state between cases. Failures are still reported in input order.
+     *
+     * @return true to spread the cases over a fork-join pool, default is false
+     */
+    boolean parallel() default false;
+
+    /**
+     * Specifies the time limit of a single test case in milliseconds.
+     * When positive, every invocation runs on a watched worker thread; a case whose invocation
+     * takes longer is reported as "Time Limit Exceeded" and the remaining cases keep running.
+     *
+     * @return the time limit in milliseconds, default is 0 which means no limit
+     */
+    long timeLimitMs() default 0;
+
+    /**
+     * Specifies the memory limit of a single test case in megabytes.
+     * When positive, a case whose invocation grows the heap by more than this amount is
+     * reported as "Memory Limit Exceeded". The peak heap is sampled only when cases run
+     * sequentially, because parallel cases share the heap.
+     *
+     * @return the memory limit in megabytes, default is 0 which means no limit
+     */
+    long memoryLimitMb() default 0;
+
+    /**
+     * Determines whether a result ledger is kept next to the input file.
+     * The cases that failed in the last run run first, and the cases that passed with the same
+     * bytecode are skipped. Parallel runs keep the input order and only skip.
+     *
+     * @return true to keep a ledger, default is false
+     */
+    boolean ledger() default false;
+
+    /**
+     * Runs the cases that passed before as well when {@link #ledger()} is set; the ledger is still updated.
+     *
+     * @return true to run every case, default is false
+     */
+    boolean force() default false;
 }
\ No newline at end of file
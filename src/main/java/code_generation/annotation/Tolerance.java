@@ -0,0 +1,40 @@
+package code_generation.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the error accepted when a {@code double} answer is compared with the expected value.
+ * A result passes when its absolute error is at most {@link #absolute()} or its error relative to the
+ * expected value is at most {@link #relative()}, the usual "answers within 10<sup>-5</sup> of the actual
+ * answer will be accepted" rule.
+ *
+ * <p>Applies to {@code double}, {@code double[]} and {@code double[][]} results. Without this annotation
+ * both tolerances are 1e-5.</p>
+ * <pre>
+ * &#64;Tolerance(absolute = 1e-6, relative = 1e-6)
+ * public double minimumAverage(int[] nums) { ... }
+ * </pre>
+ * @author wuxin0011
+ * @since 1.0
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Tolerance {
+
+    /**
+     * Specifies the accepted absolute error.
+     *
+     * @return the absolute tolerance, default is 1e-5
+     */
+    double absolute() default 1e-5;
+
+    /**
+     * Specifies the accepted error relative to the expected value.
+     *
+     * @return the relative tolerance, default is 1e-5
+     */
+    double relative() default 1e-5;
+}
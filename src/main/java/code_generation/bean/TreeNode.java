@@ -134,6 +134,42 @@ public class TreeNode {
         return root;
     }
 
+    /**
+     * Builds a binary tree from level-order values that have already been parsed.
+     * In level order the non-null nodes are created in the same order in which they later take their
+     * children, so the nodes are kept in one preallocated array and a cursor over it replaces the queue.
+     *
+     * @param values the level-order values
+     * @param nulls  marks the empty positions, whose value is ignored
+     * @param n      the number of positions to use
+     * @return the root node of the constructed binary tree, or null if the first position is empty
+     */
+    public static TreeNode widthBuildTreeNode(int[] values, boolean[] nulls, int n) {
+        if (n == 0 || nulls[0]) {
+            return null;
+        }
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!nulls[i]) count++;
+        }
+        TreeNode[] nodes = new TreeNode[count];
+        nodes[0] = new TreeNode(values[0]);
+        int size = 1;
+        // parent 指向下一个等待挂孩子的节点 i 指向下一个值
+        for (int parent = 0, i = 1; parent < size && i < n; parent++) {
+            TreeNode node = nodes[parent];
+            if (!nulls[i]) {
+                node.left = nodes[size++] = new TreeNode(values[i]);
+            }
+            if (++i >= n) break;
+            if (!nulls[i]) {
+                node.right = nodes[size++] = new TreeNode(values[i]);
+            }
+            i++;
+        }
+        return nodes[0];
+    }
+
     /**
      * Checks if a string represents a null node in serialized tree formats.
      *
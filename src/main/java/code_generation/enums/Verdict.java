@@ -0,0 +1,58 @@
+package code_generation.enums;
+
+
+/**
+ * Represents the judge verdict of a single test case.
+ * The descriptions follow the wording used by online judges so the console output
+ * reads the same as a submission result.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public enum Verdict {
+
+    /**
+     * The result matches the expected answer
+     */
+    ACCEPTED("Accepted"),
+
+    /**
+     * The result does not match the expected answer
+     */
+    WRONG_ANSWER("Wrong Answer"),
+
+    /**
+     * The solution threw an exception while running the case
+     */
+    RUNTIME_ERROR("Runtime Error"),
+
+    /**
+     * The solution did not finish the case within the time limit
+     */
+    TIME_LIMIT_EXCEEDED("Time Limit Exceeded"),
+
+    /**
+     * The solution used more memory than the memory limit
+     */
+    MEMORY_LIMIT_EXCEEDED("Memory Limit Exceeded");
+
+    /**
+     * The judge style description of the verdict
+     */
+    final String desc;
+
+    /**
+     * Constructs a Verdict enum constant with the specified description.
+     * @param desc The judge style description of the verdict
+     */
+    Verdict(String desc) {
+        this.desc = desc;
+    }
+
+    /**
+     * Gets the judge style description of this verdict.
+     * @return The description string
+     */
+    public String getDesc() {
+        return this.desc;
+    }
+}
@@ -0,0 +1,21 @@
+package code_generation.function;
+
+/**
+ * Represents a parser that has already been specialized for one argument or return type.
+ * Instances are created once by {@code ReflectUtils.compileParser} and then applied to the raw
+ * input of every test case, so the type is never looked up again while the cases run.
+ * @author wuxin0011
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface ArgParser {
+
+    /**
+     * Parses one raw input value.
+     *
+     * @param input the raw input line
+     * @return the parsed value, or null if the input is empty or can not be parsed
+     */
+    Object parse(String input);
+
+}
@@ -0,0 +1,23 @@
+package code_generation.function;
+
+/**
+ * Generates the arguments of a method for a given input size, usually with
+ * {@code RandomArrayUtils}. Used by {@code ComplexityEstimator} to time a solution on growing inputs.
+ * <pre>
+ * InputShape shape = n -&gt; new Object[]{RandomArrayUtils.randomIntArray(n, n, 1, (int) 1e9), n / 2};
+ * </pre>
+ * @author wuxin0011
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface InputShape {
+
+    /**
+     * Generates fresh arguments for one invocation.
+     *
+     * @param n the input size
+     * @return the arguments, in parameter order
+     */
+    Object[] generate(int n);
+
+}
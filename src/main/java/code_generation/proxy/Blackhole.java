@@ -0,0 +1,29 @@
+package code_generation.proxy;
+
+/**
+ * Consumes benchmark results so the JIT can not prove them unused and remove the work that produced them.
+ * The check against a volatile field can never succeed, but the compiler has to keep the value alive to
+ * perform it.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class Blackhole {
+
+    /**
+     * 永远不会相等 只用来阻止死代码消除
+     */
+    private volatile Object sentinel = new Object();
+
+    private Object sink;
+
+    /**
+     * Consumes a value.
+     *
+     * @param value the value to keep alive
+     */
+    public void consume(Object value) {
+        if (value == sentinel) {
+            sink = value;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package code_generation.proxy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures wall time, thread CPU time and allocated bytes of the phases of a test case.
+ * A probe belongs to the thread that runs the case: {@link #begin()} takes a snapshot of the
+ * current thread and {@link #end(CaseResult, int)} adds the difference to the given phase of
+ * the {@link CaseResult}. CPU time and allocation are reported as 0 when the running JVM does
+ * not support them.
+ * <p>The heap helpers sample the heap memory pools of the whole JVM, so their figures are only
+ * meaningful while a single case is running.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class CaseProbe {
+
+    /**
+     * The thread bean used to read the CPU time of the current thread
+     */
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    /**
+     * The HotSpot extension used to read allocated bytes, or null if not available
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = initAllocationBean();
+
+    /**
+     * Whether thread CPU time can be measured
+     */
+    private static final boolean CPU_TIME_SUPPORTED = initCpuTime();
+
+    /**
+     * The heap memory pools whose peak usage is tracked
+     */
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = initHeapPools();
+
+    /**
+     * Wall time at the last {@link #begin()}
+     */
+    private long wall;
+
+    /**
+     * Thread CPU time at the last {@link #begin()}
+     */
+    private long cpu;
+
+    /**
+     * Allocated bytes of the current thread at the last {@link #begin()}
+     */
+    private long allocated;
+
+    /**
+     * Takes a snapshot of the current thread, starting a new phase.
+     */
+    public void begin() {
+        this.allocated = currentAllocatedBytes();
+        this.cpu = currentCpuTime();
+        this.wall = System.nanoTime();
+    }
+
+    /**
+     * Ends the current phase and adds the measured figures to the given phase of the result.
+     *
+     * @param result the result the figures are added to
+     * @param phase  one of {@link CaseResult#PARSE}, {@link CaseResult#INVOKE} or {@link CaseResult#COMPARE}
+     */
+    public void end(CaseResult result, int phase) {
+        long now = System.nanoTime();
+        long cpuNow = currentCpuTime();
+        long allocatedNow = currentAllocatedBytes();
+        result.wallNanos[phase] += now - wall;
+        result.cpuNanos[phase] += cpuNow - cpu;
+        result.allocatedBytes[phase] += allocatedNow - allocated;
+    }
+
+    /**
+     * Returns the CPU time consumed so far by the current thread.
+     *
+     * @return the CPU time in nanoseconds, or 0 if not supported
+     */
+    public static long currentCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0L;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread.
+     *
+     * @return the allocated bytes, or 0 if not supported
+     */
+    public static long currentAllocatedBytes() {
+        return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+    }
+
+    /**
+     * Resets the peak usage of every heap pool and returns the heap currently in use.
+     * Pass the returned value to {@link #peakHeapGrowth(long)} after the measured code ran.
+     *
+     * @return the heap in use in bytes
+     */
+    public static long resetHeapPeak() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            pool.resetPeakUsage();
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * Returns how much the heap peak grew since {@link #resetHeapPeak()}.
+     * The peaks of the pools are summed, so the figure is an upper bound of the real peak.
+     *
+     * @param baseline the value returned by {@link #resetHeapPeak()}
+     * @return the peak heap growth in bytes, never negative
+     */
+    public static long peakHeapGrowth(long baseline) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return Math.max(0, peak - baseline);
+    }
+
+    /**
+     * Collects the heap memory pools that support usage monitoring.
+     *
+     * @return the heap memory pools
+     */
+    private static List<MemoryPoolMXBean> initHeapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Enables thread CPU time measurement if the JVM supports it.
+     *
+     * @return true if thread CPU time can be measured
+     */
+    private static boolean initCpuTime() {
+        try {
+            if (!THREAD_BEAN.isCurrentThreadCpuTimeSupported()) {
+                return false;
+            }
+            if (!THREAD_BEAN.isThreadCpuTimeEnabled()) {
+                THREAD_BEAN.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (Exception ignore) {
+            return false;
+        }
+    }
+
+    /**
+     * Looks up the HotSpot thread bean and enables allocation measurement if possible.
+     *
+     * @return the bean, or null if allocated bytes can not be measured
+     */
+    private static com.sun.management.ThreadMXBean initAllocationBean() {
+        try {
+            if (!(THREAD_BEAN instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+            if (!bean.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        } catch (Throwable ignore) {
+            return null;
+        }
+    }
+}
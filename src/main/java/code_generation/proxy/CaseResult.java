@@ -0,0 +1,159 @@
+package code_generation.proxy;
+
+import code_generation.enums.Verdict;
+
+/**
+ * Holds the outcome of running a single test case.
+ * The runner fills it while parsing, invoking and comparing a case, so the outcome can be
+ * reported later and in input order, for example when cases are executed in parallel.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class CaseResult {
+
+    /**
+     * Phase index of argument and expected value parsing
+     */
+    public static final int PARSE = 0;
+
+    /**
+     * Phase index of the solution invocation
+     */
+    public static final int INVOKE = 1;
+
+    /**
+     * Phase index of the result comparison
+     */
+    public static final int COMPARE = 2;
+
+    /**
+     * The names of the phases, indexed by phase
+     */
+    public static final String[] PHASE_NAMES = {"parse", "invoke", "compare"};
+
+    /**
+     * The 1-based number of the case in the input file
+     */
+    public final int caseNo;
+
+    /**
+     * The verdict of the case
+     */
+    public Verdict verdict;
+
+    /**
+     * The value returned by the solution, or the compared argument for void methods
+     */
+    public Object result;
+
+    /**
+     * The parsed expected value
+     */
+    public Object expect;
+
+    /**
+     * The simple type name used to compare result and expect
+     */
+    public String returnName;
+
+    /**
+     * The exception thrown by the solution, if any
+     */
+    public Throwable error;
+
+    /**
+     * Wall time of every phase in nanoseconds
+     */
+    public final long[] wallNanos = new long[PHASE_NAMES.length];
+
+    /**
+     * Thread CPU time of every phase in nanoseconds
+     */
+    public final long[] cpuNanos = new long[PHASE_NAMES.length];
+
+    /**
+     * Bytes allocated by the running thread during every phase
+     */
+    public final long[] allocatedBytes = new long[PHASE_NAMES.length];
+
+    /**
+     * The peak heap growth during the invocation in bytes, an upper bound of the memory retained
+     * by the solution because it includes garbage that was not collected yet; -1 if not sampled
+     */
+    public long peakHeapBytes = -1;
+
+    /**
+     * The {@link System#nanoTime()} at which the invocation started, read by the time limit watchdog
+     */
+    public volatile long invokeStartNanos;
+
+    /**
+     * Whether the solution is being invoked right now, read by the time limit watchdog
+     */
+    public volatile boolean invoking;
+
+    /**
+     * Set by the time limit watchdog when it gives up on the case; the worker that may still be running
+     * then skips every side effect outside of this result
+     */
+    public volatile boolean abandoned;
+
+    /**
+     * Constructs an empty result for the given case number.
+     *
+     * @param caseNo The 1-based number of the case in the input file
+     */
+    public CaseResult(int caseNo) {
+        this.caseNo = caseNo;
+    }
+
+    /**
+     * Checks whether the case was accepted.
+     *
+     * @return true if the verdict is {@link Verdict#ACCEPTED}
+     */
+    public boolean isAccepted() {
+        return verdict == Verdict.ACCEPTED;
+    }
+
+    /**
+     * Returns the wall time of all phases.
+     *
+     * @return the total wall time in nanoseconds
+     */
+    public long totalWallNanos() {
+        return sum(wallNanos);
+    }
+
+    /**
+     * Returns the thread CPU time of all phases.
+     *
+     * @return the total CPU time in nanoseconds
+     */
+    public long totalCpuNanos() {
+        return sum(cpuNanos);
+    }
+
+    /**
+     * Returns the bytes allocated in all phases.
+     *
+     * @return the total allocated bytes
+     */
+    public long totalAllocatedBytes() {
+        return sum(allocatedBytes);
+    }
+
+    /**
+     * Sums the values of every phase.
+     *
+     * @param values the per-phase values
+     * @return the sum
+     */
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,172 @@
+package code_generation.proxy;
+
+import code_generation.enums.Verdict;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs test cases on watched worker threads and enforces a time limit on their invocation.
+ * Only the invocation phase counts towards the limit, so parsing a huge input does not cause
+ * a false "Time Limit Exceeded"; the deadline is measured from the start of the invocation.
+ *
+ * <p>One watchdog is created per run and its workers are reused from case to case: a sequential run
+ * keeps a single worker, a parallel run at most one per concurrently running case. A case that overruns
+ * is abandoned: its worker is a daemon thread that gets interrupted, retired and flagged as
+ * {@link CaseResult#abandoned}, so it no longer writes to the case cache or the console, and the next
+ * case gets a new worker. Solutions rarely check the interrupt, so the worker may keep a core busy;
+ * the caller stops a sequential run at the first abandoned case, see {@code IoUtil.startValid}.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class CaseWatchdog implements AutoCloseable {
+
+    /**
+     * 等待调用开始时的检查间隔 超时最多晚报告这么久
+     */
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 空闲的工作线程
+     */
+    private final Queue<Worker> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 已创建的工作线程数量 用于线程命名
+     */
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * Runs the task that fills the given result on an idle worker and waits until it finishes or the
+     * invocation exceeds the time limit.
+     *
+     * @param caseResult the result filled by the task; its invocation markers are watched
+     * @param task       the task that parses, invokes and compares the case
+     * @param limitNanos the time limit of the invocation in nanoseconds; must be positive
+     * @return the filled result, or a new result with verdict {@link Verdict#TIME_LIMIT_EXCEEDED}
+     * @throws RuntimeException if the task fails outside of the invocation, for example while parsing
+     */
+    public CaseResult run(CaseResult caseResult, Runnable task, long limitNanos) {
+        Worker worker = idle.poll();
+        if (worker == null) {
+            worker = new Worker("case-worker-" + created.incrementAndGet());
+        }
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        worker.tasks.add(future);
+        // 调用开始之前按较短的间隔检查 调用开始之后只等待剩余的时间
+        long wait = Math.min(limitNanos, POLL_NANOS);
+        while (true) {
+            try {
+                future.get(wait, TimeUnit.NANOSECONDS);
+                break;
+            } catch (TimeoutException e) {
+                if (!caseResult.invoking) {
+                    // 还在解析或者比较阶段
+                    continue;
+                }
+                long elapsed = System.nanoTime() - caseResult.invokeStartNanos;
+                if (elapsed >= limitNanos) {
+                    abandon(caseResult, worker);
+                    return timeLimitExceeded(caseResult, elapsed);
+                }
+                wait = limitNanos - elapsed;
+            } catch (InterruptedException e) {
+                abandon(caseResult, worker);
+                Thread.currentThread().interrupt();
+                return timeLimitExceeded(caseResult, System.nanoTime() - caseResult.invokeStartNanos);
+            } catch (ExecutionException e) {
+                idle.add(worker);
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+        idle.add(worker);
+        long elapsed = caseResult.wallNanos[CaseResult.INVOKE];
+        if (elapsed > limitNanos) {
+            caseResult.verdict = Verdict.TIME_LIMIT_EXCEEDED;
+        }
+        return caseResult;
+    }
+
+    /**
+     * Stops the idle workers. Abandoned workers were already retired and stop when their case returns.
+     */
+    @Override
+    public void close() {
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.retire();
+        }
+    }
+
+    private static void abandon(CaseResult caseResult, Worker worker) {
+        caseResult.abandoned = true;
+        worker.retire();
+    }
+
+    /**
+     * Creates the result reported for an abandoned case.
+     * A new object is returned because the abandoned worker may still write to the original one.
+     *
+     * @param caseResult the result of the abandoned case
+     * @param elapsed    the elapsed invocation time in nanoseconds
+     * @return a result with verdict {@link Verdict#TIME_LIMIT_EXCEEDED}
+     */
+    private static CaseResult timeLimitExceeded(CaseResult caseResult, long elapsed) {
+        CaseResult tle = new CaseResult(caseResult.caseNo);
+        tle.verdict = Verdict.TIME_LIMIT_EXCEEDED;
+        tle.wallNanos[CaseResult.PARSE] = caseResult.wallNanos[CaseResult.PARSE];
+        tle.cpuNanos[CaseResult.PARSE] = caseResult.cpuNanos[CaseResult.PARSE];
+        tle.allocatedBytes[CaseResult.PARSE] = caseResult.allocatedBytes[CaseResult.PARSE];
+        tle.wallNanos[CaseResult.INVOKE] = elapsed;
+        tle.abandoned = true;
+        return tle;
+    }
+
+    /**
+     * A daemon thread that runs one case after another until it is retired.
+     */
+    private static final class Worker extends Thread {
+
+        /**
+         * 空闲时最多只有一个待运行的用例
+         */
+        private final BlockingQueue<Runnable> tasks = new ArrayBlockingQueue<>(1);
+
+        private volatile boolean retired;
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
+            start();
+        }
+
+        void retire() {
+            retired = true;
+            interrupt();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!retired) {
+                    tasks.take().run();
+                    // 用例留下的中断标记不影响下一个用例
+                    Thread.interrupted();
+                }
+            } catch (InterruptedException e) {
+                // 已退役
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package code_generation.proxy;
+
+import code_generation.function.InputShape;
+import code_generation.utils.IoUtil;
+import code_generation.utils.RandomArrayUtils;
+import code_generation.utils.ReflectUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+/**
+ * Estimates the time complexity of a solution before it is submitted.
+ *
+ * <p>The method is timed on random inputs of size n = 2<sup>10</sup>, 2<sup>11</sup>, ... 2<sup>20</sup>
+ * produced by an {@link InputShape}. A straight line is fitted through {@code (log n, log time)}; its slope
+ * is the exponent of the growth. The growth model whose shape fits the measurements best, e.g.
+ * {@code n log n}, is reported together with the time it predicts at the constraint:</p>
+ * <pre>
+ * slope 1.08 ≈ O(n log n), 1e5 in 42.000 ms
+ * </pre>
+ * <p>Every size takes the fastest of a few runs, which filters out garbage collection pauses. The sizes stop
+ * growing once one run takes longer than {@link #TIME_BUDGET_MS}, so an O(n<sup>2</sup>) solution does
+ * not run for minutes. Without a shape, the arguments are generated from the parameter types with
+ * {@link RandomArrayUtils}.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class ComplexityEstimator {
+
+    /**
+     * 最小规模 2^10
+     */
+    public static int MIN_EXP = 10;
+
+    /**
+     * 最大规模 2^20
+     */
+    public static int MAX_EXP = 20;
+
+    /**
+     * 单次运行超过该时间后不再增大规模
+     */
+    public static long TIME_BUDGET_MS = 1000;
+
+    /**
+     * 每个规模至少运行的次数 取最小值
+     */
+    private static final int MIN_RUNS = 3;
+
+    /**
+     * 每个规模累计运行超过该时间后不再重复
+     */
+    private static final long REPEAT_NANOS = 50_000_000L;
+
+    /**
+     * 低于该时间的测量噪声太大 点数足够时不参与拟合
+     */
+    private static final long NOISE_NANOS = 50_000L;
+
+    /**
+     * 更复杂的模型方差至少要降低到该比例才会被选择
+     */
+    private static final double PARSIMONY = 0.5;
+
+    private static final String[] MODEL_NAMES = {"1", "log n", "n", "n log n", "n^2", "n^2 log n", "n^3"};
+
+    private ComplexityEstimator() {
+    }
+
+    /**
+     * Estimates the complexity of the solution method of a class at the default constraint 1e5, generating
+     * the arguments from the parameter types.
+     *
+     * @param src the class that declares the solution
+     * @return the summary line
+     */
+    public static String estimate(Class<?> src) {
+        return estimate(src, IoUtil.DEFAULT_METHOD_NAME, null, RandomArrayUtils.int_10_5);
+    }
+
+    /**
+     * Estimates the complexity of a method at the default constraint 1e5.
+     *
+     * @param src        the class that declares the solution
+     * @param methodName the method to time
+     * @param shape      the generator of the arguments, null to generate them from the parameter types
+     * @return the summary line
+     */
+    public static String estimate(Class<?> src, String methodName, InputShape shape) {
+        return estimate(src, methodName, shape, RandomArrayUtils.int_10_5);
+    }
+
+    /**
+     * Estimates the complexity of a method and prints the measurements.
+     *
+     * @param src        the class that declares the solution
+     * @param methodName the method to time
+     * @param shape      the generator of the arguments, null to generate them from the parameter types
+     * @param constraint the input size the predicted time is reported for
+     * @return the summary line, e.g. {@code slope 1.08 ≈ O(n log n), 1e5 in 42.000 ms}
+     */
+    public static String estimate(Class<?> src, String methodName, InputShape shape, int constraint) {
+        Method method = IoUtil.findMethodName(src, methodName);
+        Objects.requireNonNull(method, "not find method " + methodName);
+        InputShape input = shape == null ? defaultShape(method) : shape;
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        // 预热 让 JIT 先编译热点代码
+        long warmupEnd = System.nanoTime() + REPEAT_NANOS * 4;
+        for (int i = 0; i < 50 && System.nanoTime() < warmupEnd; i++) {
+            run(src, method, isStatic, input.generate(1 << MIN_EXP));
+        }
+
+        int m = MAX_EXP - MIN_EXP + 1;
+        long[] sizes = new long[m], nanos = new long[m];
+        int k = 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append("======================================复杂度估计=====================\n");
+        sb.append(String.format("%-12s %12s %8s%n", "n", "time(ms)", "runs"));
+        for (int e = MIN_EXP; e <= MAX_EXP; e++) {
+            int n = 1 << e;
+            long best = Long.MAX_VALUE, spent = 0;
+            int runs = 0;
+            while (runs < MIN_RUNS || spent < REPEAT_NANOS && runs < 20) {
+                // 输入可能被修改 每次重新生成 生成时间不计入
+                long t = run(src, method, isStatic, input.generate(n));
+                best = Math.min(best, t);
+                spent += t;
+                runs++;
+                if (t > TIME_BUDGET_MS * 1_000_000L) {
+                    break;
+                }
+            }
+            sizes[k] = n;
+            nanos[k++] = best;
+            sb.append(String.format("%-12d %12s %8d%n", n, RunReport.ms(best), runs));
+            if (best > TIME_BUDGET_MS * 1_000_000L) {
+                break;
+            }
+        }
+        String summary = summary(sizes, nanos, k, constraint);
+        sb.append(summary).append('\n');
+        sb.append("=====================================================================");
+        System.out.println(sb);
+        return summary;
+    }
+
+    private static long run(Class<?> src, Method method, boolean isStatic, Object[] args) {
+        Object obj = isStatic ? null : ReflectUtils.initObjcect(src, null);
+        long start = System.nanoTime();
+        try {
+            method.invoke(obj, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not access method " + method, e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("run failed on generated input", e.getCause());
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Fits the measurements and formats the estimated growth.
+     *
+     * @param sizes      the input sizes
+     * @param nanos      the measured time of every size
+     * @param k          the number of measurements
+     * @param constraint the input size to predict the time for
+     * @return the summary line
+     */
+    static String summary(long[] sizes, long[] nanos, int k, int constraint) {
+        // 点数足够时去掉噪声过大的小规模
+        int from = 0;
+        while (k - from > 3 && nanos[from] < NOISE_NANOS) {
+            from++;
+        }
+        int cnt = k - from;
+        if (cnt < 2) {
+            return "not enough sizes to estimate, " + sizes[k - 1] + " in " + RunReport.ms(nanos[k - 1]) + " ms";
+        }
+        double[] x = new double[cnt], y = new double[cnt];
+        for (int i = 0; i < cnt; i++) {
+            x[i] = Math.log(sizes[from + i]);
+            y[i] = Math.log(Math.max(1, nanos[from + i]));
+        }
+        double mx = 0, my = 0;
+        for (int i = 0; i < cnt; i++) {
+            mx += x[i];
+            my += y[i];
+        }
+        mx /= cnt;
+        my /= cnt;
+        double sxy = 0, sxx = 0;
+        for (int i = 0; i < cnt; i++) {
+            sxy += (x[i] - mx) * (y[i] - my);
+            sxx += (x[i] - mx) * (x[i] - mx);
+        }
+        double slope = sxy / sxx;
+
+        // 选择 log(time / f(n)) 方差最小的模型 也就是形状最接近的
+        // 相邻模型在测量范围内很接近 更复杂的模型要明显更好才选择
+        int best = 0;
+        double bestVariance = Double.MAX_VALUE, bestConstant = 0;
+        for (int model = 0; model < MODEL_NAMES.length; model++) {
+            double mean = 0, variance = 0;
+            for (int i = 0; i < cnt; i++) {
+                mean += y[i] - logModel(model, x[i]);
+            }
+            mean /= cnt;
+            for (int i = 0; i < cnt; i++) {
+                double d = y[i] - logModel(model, x[i]) - mean;
+                variance += d * d;
+            }
+            if (variance < bestVariance * PARSIMONY) {
+                bestVariance = variance;
+                best = model;
+                bestConstant = mean;
+            }
+        }
+        double predicted = Math.exp(bestConstant + logModel(best, Math.log(constraint)));
+        return String.format("slope %.2f ≈ O(%s), %s in %s ms", slope, MODEL_NAMES[best], formatSize(constraint), RunReport.ms((long) predicted));
+    }
+
+    /**
+     * Returns {@code log f(n)} of a model, given {@code log n}.
+     */
+    private static double logModel(int model, double logN) {
+        // log n 至少取 1 避免小规模时 log log n 为负数
+        double logLogN = Math.log(Math.max(Math.E, logN));
+        switch (model) {
+            case 0:
+                return 0;
+            case 1:
+                return logLogN;
+            case 2:
+                return logN;
+            case 3:
+                return logN + logLogN;
+            case 4:
+                return 2 * logN;
+            case 5:
+                return 2 * logN + logLogN;
+            default:
+                return 3 * logN;
+        }
+    }
+
+    private static String formatSize(int n) {
+        int e = 0;
+        long p = 1;
+        while (p < n) {
+            p *= 10;
+            e++;
+        }
+        return p == n ? "1e" + e : String.valueOf(n);
+    }
+
+    /**
+     * Builds an input shape from the parameter types: arrays and strings get n random elements,
+     * numbers get n itself.
+     *
+     * @param method the method to generate the arguments for
+     * @return the input shape
+     * @throws RuntimeException if a parameter type is not supported, in which case a shape must be given
+     */
+    public static InputShape defaultShape(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (Class<?> type : parameterTypes) {
+            String name = type.getSimpleName();
+            if (!"int".equals(name) && !"long".equals(name) && !"int[]".equals(name) && !"long[]".equals(name)
+                    && !"char[]".equals(name) && !"String".equals(name) && !"String[]".equals(name)) {
+                throw new RuntimeException("can not generate " + name + " , place give an InputShape !");
+            }
+        }
+        return n -> {
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                switch (parameterTypes[i].getSimpleName()) {
+                    case "int":
+                        args[i] = n;
+                        break;
+                    case "long":
+                        args[i] = (long) n;
+                        break;
+                    case "int[]":
+                        args[i] = RandomArrayUtils.randomIntArray(n, n, 1, RandomArrayUtils.int_10_9);
+                        break;
+                    case "long[]":
+                        long[] values = new long[n];
+                        for (int j = 0; j < n; j++) {
+                            values[j] = RandomArrayUtils.randomValue(1, RandomArrayUtils.int_10_9);
+                        }
+                        args[i] = values;
+                        break;
+                    case "char[]":
+                        args[i] = RandomArrayUtils.randomCharArray(n, n);
+                        break;
+                    case "String":
+                        args[i] = RandomArrayUtils.randomString(n, n, 'a', 'z');
+                        break;
+                    default:
+                        args[i] = RandomArrayUtils.randomStringArray(n, n, 1, 10, 'a', 'z');
+                        break;
+                }
+            }
+            return args;
+        };
+    }
+}
@@ -0,0 +1,543 @@
+package code_generation.proxy;
+
+import code_generation.bean.ListNode;
+import code_generation.bean.TreeNode;
+import code_generation.function.InputShape;
+import code_generation.utils.DiffPrinter;
+import code_generation.utils.IoUtil;
+import code_generation.utils.RandomArrayUtils;
+import code_generation.utils.ReflectUtils;
+import code_generation.utils.TestUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Randomized differential testing (对拍) of a solution against a brute force one.
+ *
+ * <p>Both methods must have the same parameter types. Random inputs are produced by an {@link InputShape}
+ * for sizes between 1 and a maximum size, and every input is run on all cores: the brute force answer is
+ * the expected value and the two answers are compared with {@link TestUtils#valid}. The run stops at the
+ * first mismatch, when the solution throws on an input the brute force accepts, or when it runs longer than
+ * {@link #TIME_LIMIT_MS} on one input. Methods that overrun are abandoned on daemon threads, like
+ * {@link CaseWatchdog} does.</p>
+ *
+ * <p>The failing input is then shrunk to a small reproducer. First smaller sizes are generated again,
+ * which keeps every constraint the generator guarantees. Then, if {@link #SHRINK_ELEMENTS} allows it, chunks
+ * of array, string and list arguments are removed, keeping at least one element. A smaller input only
+ * replaces the current one when the brute force still accepts it and the solution fails the same way,
+ * with a wrong answer, the same exception type or a time limit. The reproducer is
+ * printed and appended to the {@code in.txt} next to the solution, the arguments one per line followed
+ * by the brute force answer, so it stays as a regular test case.</p>
+ * <pre>
+ * DifferentialTester.check(Solution.class, "maxSum", "bruteForce",
+ *         n -&gt; new Object[]{RandomArrayUtils.randomIntArray(n, n, -100, 100)}, 10000, 50);
+ * </pre>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class DifferentialTester {
+
+    /**
+     * 是否删除数组 字符串 列表参数中的元素来缩小输入 null 时只在方法只有一个参数时删除
+     * 多个参数之间通常有约束 例如 n 和数组长度 删除元素后的输入可能不再合法
+     */
+    public static Boolean SHRINK_ELEMENTS = null;
+
+    /**
+     * 每个输入上每个方法的时间限制 毫秒 超时的线程会被放弃 0 表示不限制
+     */
+    public static long TIME_LIMIT_MS = 5000;
+
+    /**
+     * 缩小规模时每个规模重新生成的次数
+     */
+    public static int SHRINK_TRIES = 200;
+
+    private DifferentialTester() {
+    }
+
+    /**
+     * Runs the differential test of two methods of the same class and writes the reproducer to
+     * {@link IoUtil#DEFAULT_READ_FILE}.
+     *
+     * @param src       the class that declares both methods
+     * @param fastName  the method under test
+     * @param bruteName the brute force method
+     * @param generator the generator of random arguments for a size
+     * @param times     the number of random cases
+     * @param maxSize   the largest size passed to the generator
+     * @return true if no mismatch was found
+     */
+    public static boolean check(Class<?> src, String fastName, String bruteName, InputShape generator, int times, int maxSize) {
+        return check(IoUtil.findMethodName(src, fastName), IoUtil.findMethodName(src, bruteName), generator, times, maxSize, IoUtil.DEFAULT_READ_FILE);
+    }
+
+    /**
+     * Runs the differential test of two methods.
+     *
+     * @param fast      the method under test
+     * @param brute     the brute force method, with the same parameter types
+     * @param generator the generator of random arguments for a size
+     * @param times     the number of random cases
+     * @param maxSize   the largest size passed to the generator
+     * @param fileName  the file next to the class of {@code fast} the reproducer is appended to, null to only print it
+     * @return true if no mismatch was found
+     */
+    public static boolean check(Method fast, Method brute, InputShape generator, int times, int maxSize, String fileName) {
+        if (fast == null || brute == null) {
+            throw new RuntimeException("not find method , place check your method name !");
+        }
+        if (!Arrays.equals(fast.getParameterTypes(), brute.getParameterTypes())) {
+            throw new RuntimeException("parameter types not match : " + fast + " and " + brute);
+        }
+        Pair pair = new Pair(fast, brute);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            // 超时的线程被放弃 不能阻止虚拟机退出
+            Thread worker = new Thread(r, "differential");
+            worker.setDaemon(true);
+            return worker;
+        });
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicReference<Object[]> failed = new AtomicReference<>();
+        AtomicInteger failedSize = new AtomicInteger();
+        // 每个线程当前输入的开始时间 0 表示空闲 以及当前输入和规模
+        AtomicLongArray started = new AtomicLongArray(threads);
+        AtomicReferenceArray<Object[]> running = new AtomicReferenceArray<>(threads);
+        int[] runningSize = new int[threads];
+        long start = System.nanoTime();
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            pool.execute(() -> {
+                int i;
+                while (failed.get() == null && (i = next.getAndIncrement()) < times) {
+                    // 小规模优先 先找到的输入更容易缩小
+                    int n = Math.max(1, (int) ((long) maxSize * (i + 1) / times));
+                    n = RandomArrayUtils.randomValue(1, n);
+                    Object[] args = generator.generate(n);
+                    runningSize[worker] = n;
+                    running.set(worker, args);
+                    started.set(worker, System.nanoTime());
+                    Outcome outcome = pair.run(args, false);
+                    started.set(worker, 0);
+                    if (outcome == Outcome.INVALID) {
+                        skipped.incrementAndGet();
+                    } else if (outcome.isFailed() && failed.compareAndSet(null, args)) {
+                        failedSize.set(n);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        // 暴力方法和待测方法各有一份时间限制
+        long limitNanos = TimeUnit.MILLISECONDS.toNanos(TIME_LIMIT_MS) * 2;
+        boolean isOverrun = false;
+        try {
+            while (!isOverrun && !pool.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+                for (int w = 0; w < threads && limitNanos > 0; w++) {
+                    long begin = started.get(w);
+                    Object[] args = running.get(w);
+                    if (begin != 0 && System.nanoTime() - begin > limitNanos && failed.compareAndSet(null, args)) {
+                        failedSize.set(runningSize[w]);
+                        isOverrun = true;
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (isOverrun) {
+            pool.shutdownNow();
+        }
+        int ran = Math.min(next.get(), times);
+        String cost = RunReport.ms(System.nanoTime() - start);
+        if (skipped.get() > 0) {
+            System.out.println("brute force failed on " + skipped.get() + " inputs , they are skipped");
+        }
+        Object[] args = failed.get();
+        if (args == null) {
+            System.out.println("对拍 " + ran + " cases in " + cost + " ms , Accepted!");
+            return true;
+        }
+        // 并行运行时的结果可能受其他线程影响 单独重新运行一次确定失败类型
+        Outcome failure = pair.run(args, true);
+        if (!failure.isFailed()) {
+            System.out.println("对拍 stopped after " + ran + " cases in " + cost + " ms , an input "
+                    + (isOverrun ? "exceeded the time limit" : "failed") + " in parallel but " + failure.name + " when run alone :");
+            for (Object arg : args) {
+                System.out.println(toInput(arg));
+            }
+            return false;
+        }
+        System.out.println("对拍 " + failure.name + " after " + ran + " cases in " + cost + " ms , shrinking ...");
+        args = shrink(pair, generator, args, failedSize.get(), failure);
+        report(pair, args, fileName);
+        return false;
+    }
+
+    private static Object[] shrink(Pair pair, InputShape generator, Object[] args, int size, Outcome failure) {
+        // 重新生成更小规模的输入 保留生成器的约束
+        search:
+        for (int n = 1; n < size; n++) {
+            for (int t = 0; t < SHRINK_TRIES && !pair.isExhausted(); t++) {
+                Object[] smaller = generator.generate(n);
+                if (failure.isSame(pair.run(smaller, true))) {
+                    args = smaller;
+                    break search;
+                }
+            }
+        }
+        boolean isShrinkElements = SHRINK_ELEMENTS != null ? SHRINK_ELEMENTS : args.length == 1;
+        if (!isShrinkElements) {
+            return args;
+        }
+        // 依次删除每个参数中的一段元素 仍然以同样方式失败就保留删除 至少保留一个元素 空输入通常不满足题目约束
+        for (int p = 0; p < args.length; p++) {
+            for (int chunk = Math.max(1, length(args[p]) / 2); chunk >= 1; chunk /= 2) {
+                for (int from = 0; from + chunk <= length(args[p]) && length(args[p]) > chunk && !pair.isExhausted(); ) {
+                    Object[] candidate = args.clone();
+                    candidate[p] = remove(args[p], from, chunk);
+                    if (failure.isSame(pair.run(candidate, true))) {
+                        args = candidate;
+                    } else {
+                        from += chunk;
+                    }
+                }
+            }
+        }
+        return args;
+    }
+
+    private static void report(Pair pair, Object[] args, String fileName) {
+        Object expect;
+        Object result;
+        try {
+            expect = pair.call(pair.brute, args);
+        } catch (TimeoutException e) {
+            System.out.println("brute force exceeded the time limit on the minimal input");
+            return;
+        }
+        try {
+            result = pair.call(pair.fast, args);
+        } catch (TimeoutException e) {
+            result = e;
+        } catch (RuntimeException e) {
+            result = e.getCause();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Object arg : args) {
+            sb.append(toInput(arg)).append('\n');
+        }
+        sb.append(toInput(expect)).append('\n');
+        System.out.println("minimal input :");
+        System.out.print(sb);
+        if (result instanceof TimeoutException) {
+            System.out.println("time limit exceeded : " + TIME_LIMIT_MS + " ms");
+        } else if (result instanceof Throwable) {
+            System.out.println("exception : " + result);
+        } else {
+            DiffPrinter.print(expect, result);
+        }
+        if (fileName == null) {
+            return;
+        }
+        Class<?> origin = ReflectUtils.loadOrigin(pair.fast.getDeclaringClass());
+        String old = IoUtil.readContent(origin, fileName);
+        String content = old.isEmpty() || old.endsWith("\n") ? old + sb : old + "\n" + sb;
+        IoUtil.writeContent(origin, fileName, content);
+        System.out.println("append to " + IoUtil.wrapperAbsolutePath(origin, fileName));
+    }
+
+    /**
+     * Formats a value in the input format read by {@link ReflectUtils#parseArg}, e.g. {@code [1,2,3]},
+     * {@code ["a","b"]} or the level order of a tree.
+     *
+     * @param value the value to format
+     * @return the input line
+     */
+    public static String toInput(Object value) {
+        StringBuilder sb = new StringBuilder();
+        appendInput(sb, value);
+        return sb.toString();
+    }
+
+    private static void appendInput(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            sb.append('"').append(value).append('"');
+        } else if (value instanceof TreeNode) {
+            appendTree(sb, (TreeNode) value);
+        } else if (value instanceof ListNode) {
+            sb.append('[');
+            for (ListNode p = (ListNode) value; p != null; p = p.next) {
+                sb.append(p.val).append(p.next == null ? "" : ",");
+            }
+            sb.append(']');
+        } else if (value instanceof List || value.getClass().isArray()) {
+            int n = length(value);
+            sb.append('[');
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendInput(sb, get(value, i));
+            }
+            sb.append(']');
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static void appendTree(StringBuilder sb, TreeNode root) {
+        List<String> values = new ArrayList<>();
+        Queue<TreeNode> queue = new ArrayDeque<>();
+        values.add(String.valueOf(root.val));
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            TreeNode node = queue.poll();
+            for (TreeNode child : new TreeNode[]{node.left, node.right}) {
+                values.add(child == null ? "null" : String.valueOf(child.val));
+                if (child != null) {
+                    queue.add(child);
+                }
+            }
+        }
+        // 末尾的 null 不需要
+        int end = values.size();
+        while ("null".equals(values.get(end - 1))) {
+            end--;
+        }
+        sb.append('[').append(String.join(",", values.subList(0, end))).append(']');
+    }
+
+    private static int length(Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).size();
+        }
+        return value != null && value.getClass().isArray() ? Array.getLength(value) : 0;
+    }
+
+    private static Object get(Object container, int i) {
+        return container instanceof List ? ((List<?>) container).get(i) : Array.get(container, i);
+    }
+
+    private static Object remove(Object value, int from, int count) {
+        if (value instanceof CharSequence) {
+            String s = value.toString();
+            return s.substring(0, from) + s.substring(from + count);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>((List<?>) value);
+            list.subList(from, from + count).clear();
+            return list;
+        }
+        int n = Array.getLength(value);
+        Object ans = Array.newInstance(value.getClass().getComponentType(), n - count);
+        System.arraycopy(value, 0, ans, 0, from);
+        System.arraycopy(value, from + count, ans, from, n - from - count);
+        return ans;
+    }
+
+    /**
+     * Copies arrays and lists at every level, the methods may modify their arguments.
+     */
+    private static Object copy(Object value) {
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object o : (List<?>) value) {
+                list.add(copy(o));
+            }
+            return list;
+        }
+        if (value == null || !value.getClass().isArray()) {
+            return value;
+        }
+        int n = Array.getLength(value);
+        Object ans = Array.newInstance(value.getClass().getComponentType(), n);
+        if (value.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(value, 0, ans, 0, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                Array.set(ans, i, copy(Array.get(value, i)));
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * The outcome of one input. A failed outcome is a wrong answer, a time limit or an exception type,
+     * shrinking keeps an input only if it fails the same way.
+     */
+    private static final class Outcome {
+
+        static final Outcome PASSED = new Outcome("passed");
+
+        static final Outcome INVALID = new Outcome("rejected by brute force");
+
+        static final Outcome WRONG_ANSWER = new Outcome("wrong answer");
+
+        static final Outcome TIME_LIMIT = new Outcome("time limit exceeded");
+
+        final String name;
+
+        private Outcome(String name) {
+            this.name = name;
+        }
+
+        static Outcome of(Throwable e) {
+            return new Outcome("exception " + e.getClass().getName());
+        }
+
+        boolean isFailed() {
+            return this != PASSED && this != INVALID;
+        }
+
+        boolean isSame(Outcome other) {
+            return other.isFailed() && name.equals(other.name);
+        }
+    }
+
+    /**
+     * The method under test and the brute force method.
+     */
+    private static final class Pair {
+
+        final Method fast, brute;
+
+        final String returnName;
+
+        /**
+         * 返回值为 void 时比较的参数下标
+         */
+        final int typeId;
+
+        /**
+         * 缩小时超时被放弃的线程数
+         */
+        final AtomicInteger abandoned = new AtomicInteger();
+
+        Pair(Method fast, Method brute) {
+            this.fast = fast;
+            this.brute = brute;
+            fast.setAccessible(true);
+            brute.setAccessible(true);
+            Class<?>[] parameterTypes = fast.getParameterTypes();
+            boolean isVoid = "void".equals(fast.getReturnType().getSimpleName());
+            this.typeId = isVoid ? ReflectUtils.handlerVoidReturnType(parameterTypes) : -1;
+            if (isVoid && typeId == -1) {
+                throw new RuntimeException("unkonwn compare type");
+            }
+            this.returnName = isVoid ? parameterTypes[typeId].getSimpleName() : fast.getReturnType().getSimpleName();
+        }
+
+        /**
+         * Runs both methods on an input.
+         *
+         * @param args      the arguments
+         * @param isLimited whether each method runs on its own thread under {@link #TIME_LIMIT_MS}
+         * @return the outcome, {@link Outcome#INVALID} if the brute force throws or exceeds the limit
+         */
+        Outcome run(Object[] args, boolean isLimited) {
+            Object expect;
+            try {
+                expect = isLimited ? call(brute, args) : answer(brute, args);
+            } catch (RuntimeException | TimeoutException e) {
+                return Outcome.INVALID;
+            }
+            try {
+                Object result = isLimited ? call(fast, args) : answer(fast, args);
+                return TestUtils.valid(result, expect, returnName, true, false) ? Outcome.PASSED : Outcome.WRONG_ANSWER;
+            } catch (TimeoutException e) {
+                return Outcome.TIME_LIMIT;
+            } catch (RuntimeException e) {
+                return Outcome.of(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+
+        /**
+         * Returns whether as many threads were abandoned as there are cores, shrinking stops then.
+         */
+        boolean isExhausted() {
+            return abandoned.get() >= Runtime.getRuntime().availableProcessors();
+        }
+
+        /**
+         * Runs {@link #answer} on a daemon thread and abandons it after {@link #TIME_LIMIT_MS}.
+         *
+         * @throws TimeoutException if the method exceeds the limit
+         */
+        Object call(Method method, Object[] args) throws TimeoutException {
+            if (TIME_LIMIT_MS <= 0) {
+                return answer(method, args);
+            }
+            FutureTask<Object> future = new FutureTask<>(() -> answer(method, args));
+            Thread worker = new Thread(future, "differential-" + method.getName());
+            worker.setDaemon(true);
+            worker.start();
+            try {
+                return future.get(TIME_LIMIT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                abandoned.incrementAndGet();
+                worker.interrupt();
+                throw e;
+            } catch (InterruptedException e) {
+                worker.interrupt();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+
+        /**
+         * Runs a method on a copy of the arguments on a new object.
+         *
+         * @return the result, or the compared argument of a void method
+         * @throws RuntimeException wrapping the exception thrown by the method
+         */
+        Object answer(Method method, Object[] args) {
+            Object[] actual = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                actual[i] = copy(args[i]);
+            }
+            Object obj = Modifier.isStatic(method.getModifiers()) ? null : ReflectUtils.initObjcect(method.getDeclaringClass(), null);
+            Object result;
+            try {
+                result = method.invoke(obj, actual);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can not access method " + method, e);
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            return typeId == -1 ? result : actual[typeId];
+        }
+    }
+}
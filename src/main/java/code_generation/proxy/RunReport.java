@@ -0,0 +1,173 @@
+package code_generation.proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the {@link CaseResult} of every executed test case and prints a summary table.
+ * The summary shows the wall time percentiles of every phase (parse, invoke, compare) and
+ * the slowest cases, so the input that makes a solution slow can be found without
+ * instrumenting the solution by hand.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class RunReport {
+
+    /**
+     * The default number of slowest cases printed in the summary
+     */
+    public static final int DEFAULT_SLOWEST = 5;
+
+    /**
+     * The results of every executed case, in input order
+     */
+    private final List<CaseResult> results = new ArrayList<>();
+
+    /**
+     * Adds the result of an executed case.
+     *
+     * @param result the result to add
+     */
+    public void add(CaseResult result) {
+        if (result != null) {
+            results.add(result);
+        }
+    }
+
+    /**
+     * Returns the collected results in input order.
+     *
+     * @return the collected results
+     */
+    public List<CaseResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Prints the summary table with the default number of slowest cases.
+     */
+    public void print() {
+        print(DEFAULT_SLOWEST);
+    }
+
+    /**
+     * Prints the summary table.
+     *
+     * @param slowest the number of slowest cases to list
+     */
+    public void print(int slowest) {
+        if (results.isEmpty()) {
+            return;
+        }
+        int n = results.size();
+        long wall = 0, cpu = 0, allocated = 0, peakHeap = -1;
+        for (CaseResult result : results) {
+            wall += result.totalWallNanos();
+            cpu += result.totalCpuNanos();
+            allocated += result.totalAllocatedBytes();
+            peakHeap = Math.max(peakHeap, result.peakHeapBytes);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("======================================运行统计=======================\n");
+        sb.append(String.format("cases: %d, wall: %s ms, cpu: %s ms, alloc: %s, peak heap: %s%n", n, ms(wall), ms(cpu), bytes(allocated), peakHeap < 0 ? "-" : bytes(peakHeap)));
+        sb.append(String.format("%-8s %12s %12s %12s %12s %12s%n", "phase", "total(ms)", "p50(ms)", "p99(ms)", "max(ms)", "alloc"));
+        for (int phase = 0; phase < CaseResult.PHASE_NAMES.length; phase++) {
+            long[] values = new long[n];
+            long phaseAllocated = 0;
+            for (int i = 0; i < n; i++) {
+                values[i] = results.get(i).wallNanos[phase];
+                phaseAllocated += results.get(i).allocatedBytes[phase];
+            }
+            appendPhase(sb, CaseResult.PHASE_NAMES[phase], values, phaseAllocated);
+        }
+        long[] totals = new long[n];
+        for (int i = 0; i < n; i++) {
+            totals[i] = results.get(i).totalWallNanos();
+        }
+        appendPhase(sb, "total", totals, allocated);
+
+        List<CaseResult> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Long.compare(b.totalWallNanos(), a.totalWallNanos()));
+        int limit = Math.min(Math.max(slowest, 0), n);
+        if (limit > 0) {
+            sb.append("slowest cases:\n");
+            sb.append(String.format("%-8s %-22s %12s %12s %12s %12s %12s %12s %12s%n", "case", "verdict", "total(ms)", "parse(ms)", "invoke(ms)", "compare(ms)", "cpu(ms)", "alloc", "peak heap"));
+            for (int i = 0; i < limit; i++) {
+                CaseResult result = sorted.get(i);
+                sb.append(String.format("%-8d %-22s %12s %12s %12s %12s %12s %12s %12s%n",
+                        result.caseNo,
+                        result.verdict == null ? "-" : result.verdict.getDesc(),
+                        ms(result.totalWallNanos()),
+                        ms(result.wallNanos[CaseResult.PARSE]),
+                        ms(result.wallNanos[CaseResult.INVOKE]),
+                        ms(result.wallNanos[CaseResult.COMPARE]),
+                        ms(result.totalCpuNanos()),
+                        bytes(result.totalAllocatedBytes()),
+                        result.peakHeapBytes < 0 ? "-" : bytes(result.peakHeapBytes)));
+            }
+        }
+        sb.append("=====================================================================");
+        System.out.println(sb);
+    }
+
+    /**
+     * Appends one row of phase statistics.
+     *
+     * @param sb        the target builder
+     * @param name      the phase name
+     * @param values    the wall time of the phase for every case
+     * @param allocated the bytes allocated in the phase over all cases
+     */
+    private static void appendPhase(StringBuilder sb, String name, long[] values, long allocated) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        sb.append(String.format("%-8s %12s %12s %12s %12s %12s%n", name, ms(total),
+                ms(percentile(sorted, 50)), ms(percentile(sorted, 99)), ms(sorted[sorted.length - 1]), bytes(allocated)));
+    }
+
+    /**
+     * Returns the nearest-rank percentile of sorted values.
+     *
+     * @param sorted     the values in ascending order; must not be empty
+     * @param percentile the percentile between 0 and 100
+     * @return the value at the given percentile
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the formatted milliseconds
+     */
+    public static String ms(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Formats a byte count with a binary unit.
+     *
+     * @param bytes the byte count
+     * @return the formatted size, for example {@code 1.5 MB}
+     */
+    public static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+}
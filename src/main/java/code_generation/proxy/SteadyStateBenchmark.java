@@ -0,0 +1,189 @@
+package code_generation.proxy;
+
+import code_generation.annotation.Benchmark;
+import code_generation.utils.CaseReader;
+import code_generation.utils.IoUtil;
+import code_generation.utils.ParserPlan;
+import code_generation.utils.ReflectUtils;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the steady-state time of every test case, see {@link Benchmark}.
+ *
+ * <p>The first invocations of a solution include class loading, interpretation and JIT compilation, so
+ * the time measured while the cases are checked is mostly warm-up. Here every case runs
+ * {@link Benchmark#warmup()} times unmeasured and then {@link Benchmark#measure()} times measured. The
+ * arguments are parsed again and the solution object is created again before every run, outside the
+ * measured time, because the solution may modify both. Results go to a {@link Blackhole}.</p>
+ *
+ * <p>With {@link Benchmark#fork()} the benchmark runs in a new JVM started with the same class path,
+ * through {@link #main(String[])}.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class SteadyStateBenchmark {
+
+    private SteadyStateBenchmark() {
+    }
+
+    /**
+     * Entry point of a forked benchmark.
+     *
+     * @param args the class name, the method name, the input file name and whether it has long content
+     * @throws ClassNotFoundException if the class can not be loaded
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        Class<?> src = Class.forName(args[0]);
+        Method method = IoUtil.findMethodName(src, args[1]);
+        run(src, method, args[2], Boolean.parseBoolean(args[3]));
+    }
+
+    /**
+     * Benchmarks a method with the settings of its {@link Benchmark} annotation, in this JVM or in a forked one.
+     *
+     * @param src             the class that declares the method
+     * @param method          the method under test
+     * @param fileName        the input file next to the class
+     * @param openLongContent whether the file contains #content# long content
+     */
+    public static void start(Class<?> src, Method method, String fileName, boolean openLongContent) {
+        TestData testData = new TestData(method, ReflectUtils.loadOrigin(src), src);
+        if (testData.benchmark == null) {
+            return;
+        }
+        if (testData.benchmark.fork()) {
+            fork(src, method, fileName, openLongContent);
+        } else {
+            run(src, method, fileName, openLongContent);
+        }
+    }
+
+    /**
+     * Runs the benchmark in a new JVM and waits for it. Its output goes to this console.
+     */
+    private static void fork(Class<?> src, Method method, String fileName, boolean openLongContent) {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SteadyStateBenchmark.class.getName(), src.getName(), method.getName(), fileName, String.valueOf(openLongContent));
+        builder.inheritIO();
+        try {
+            int code = builder.start().waitFor();
+            if (code != 0) {
+                System.err.println("forked benchmark exit with " + code);
+            }
+        } catch (Exception e) {
+            System.err.println("fork benchmark failed " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the benchmark in this JVM and prints one row per case.
+     *
+     * @param src             the class that declares the method
+     * @param method          the method under test
+     * @param fileName        the input file next to the class
+     * @param openLongContent whether the file contains #content# long content
+     */
+    public static void run(Class<?> src, Method method, String fileName, boolean openLongContent) {
+        Class<?> origin = ReflectUtils.loadOrigin(src);
+        TestData testData = new TestData(method, origin, src);
+        int warmup = testData.benchmark == null ? 5 : Math.max(0, testData.benchmark.warmup());
+        int measure = testData.benchmark == null ? 10 : Math.max(1, testData.benchmark.measure());
+        int[] group = testData.testCaseGroup;
+        List<String[]> cases = readCases(src, method, fileName, openLongContent);
+        ParserPlan plan = ParserPlan.of(method, origin);
+        method.setAccessible(true);
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Blackhole blackhole = new Blackhole();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("======================================稳态耗时=======================\n");
+        sb.append(String.format("warmup: %d, measure: %d%n", warmup, measure));
+        sb.append(String.format("%-8s %12s %12s %12s%n", "case", "mean(ms)", "stddev(ms)", "min(ms)"));
+        long[] times = new long[measure];
+        for (int c = 0; c < cases.size(); c++) {
+            int caseNo = c + 1;
+            if (caseNo < group[0] || caseNo > group[1]) {
+                continue;
+            }
+            String[] argLines = cases.get(c);
+            try {
+                for (int i = 0; i < warmup + measure; i++) {
+                    Object[] args = new Object[argLines.length];
+                    for (int j = 0; j < args.length; j++) {
+                        args[j] = plan.parseArg(j, argLines[j]);
+                    }
+                    Object obj = isStatic ? null : ReflectUtils.initObjcect(src, null);
+                    long start = System.nanoTime();
+                    Object result = method.invoke(obj, args);
+                    long elapsed = System.nanoTime() - start;
+                    blackhole.consume(result);
+                    if (i >= warmup) {
+                        times[i - warmup] = elapsed;
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can not access method " + method, e);
+            } catch (InvocationTargetException e) {
+                sb.append(String.format("%-8d %s%n", caseNo, "exception " + e.getCause()));
+                continue;
+            }
+            double mean = 0, variance = 0;
+            long min = Long.MAX_VALUE;
+            for (long t : times) {
+                mean += t;
+                min = Math.min(min, t);
+            }
+            mean /= measure;
+            for (long t : times) {
+                variance += (t - mean) * (t - mean);
+            }
+            double stddev = measure > 1 ? Math.sqrt(variance / (measure - 1)) : 0;
+            sb.append(String.format("%-8d %12s %12s %12s%n", caseNo, RunReport.ms((long) mean), RunReport.ms((long) stddev), RunReport.ms(min)));
+        }
+        sb.append("=====================================================================");
+        System.out.println(sb);
+    }
+
+    /**
+     * Reads the argument lines of every case, grouped the same way as {@link IoUtil#startValid}.
+     */
+    private static List<String[]> readCases(Class<?> src, Method method, String fileName, boolean openLongContent) {
+        List<String[]> cases = new ArrayList<>();
+        int n = method.getParameterCount();
+        CaseReader reader = IoUtil.openCaseReader(src, fileName, openLongContent);
+        if (reader == null) {
+            return cases;
+        }
+        try {
+            while (reader.hasNext()) {
+                String[] argLines = new String[n];
+                if (n == 0) {
+                    reader.next();
+                } else {
+                    int i = 0;
+                    while (i < n && (argLines[i] = reader.nextNonBlank()) != null) {
+                        i++;
+                    }
+                    if (i < n) {
+                        break;
+                    }
+                }
+                // 期望结果不需要
+                if (reader.nextNonBlank() == null && !"string".equalsIgnoreCase(method.getReturnType().getSimpleName())) {
+                    break;
+                }
+                cases.add(argLines);
+            }
+        } finally {
+            IoUtil.close(reader);
+        }
+        return cases;
+    }
+}
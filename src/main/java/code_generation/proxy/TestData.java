@@ -1,7 +1,10 @@
 package code_generation.proxy;
 
+import code_generation.annotation.Benchmark;
 import code_generation.annotation.Description;
 import code_generation.annotation.TestCaseGroup;
+import code_generation.annotation.Tolerance;
+import code_generation.utils.DoubleJudge;
 import code_generation.utils.ReflectUtils;
 
 import java.lang.reflect.Method;
@@ -24,6 +27,41 @@ public class TestData {
      */
     public int[] testCaseGroup;
 
+    /**
+     * Whether the test cases may run in parallel
+     */
+    public boolean parallel;
+
+    /**
+     * The time limit of a single test case in milliseconds, 0 means no limit
+     */
+    public long timeLimitMs;
+
+    /**
+     * The memory limit of a single test case in megabytes, 0 means no limit
+     */
+    public long memoryLimitMb;
+
+    /**
+     * Whether a result ledger is kept, see {@link TestCaseGroup#ledger()}
+     */
+    public boolean ledger;
+
+    /**
+     * Whether the cases that passed before run as well, see {@link TestCaseGroup#force()}
+     */
+    public boolean ledgerForce;
+
+    /**
+     * The tolerance of floating point results
+     */
+    public DoubleJudge doubleJudge;
+
+    /**
+     * The steady-state benchmark settings, null if the cases are not benchmarked
+     */
+    public Benchmark benchmark;
+
     /**
      * The method being tested
      */
@@ -81,6 +119,14 @@ public class TestData {
     public void process() {
         this.info = this.getDescInfo();
         this.testCaseGroup = this.getTestCaseInfo();
+        TestCaseGroup group = this.findTestCaseGroup();
+        this.parallel = group != null && group.use() && group.parallel();
+        this.timeLimitMs = group != null && group.use() ? Math.max(0, group.timeLimitMs()) : 0;
+        this.memoryLimitMb = group != null && group.use() ? Math.max(0, group.memoryLimitMb()) : 0;
+        this.ledger = group != null && group.use() && group.ledger();
+        this.ledgerForce = group != null && group.use() && group.force();
+        this.doubleJudge = DoubleJudge.of(this.findTolerance());
+        this.benchmark = this.findBenchmark();
     }
 
     /**
@@ -113,18 +159,64 @@ public class TestData {
      * @return Array containing test case group identifiers
      */
     public int[] getTestCaseInfo() {
-        TestCaseGroup declaredAnnotation = method != null ? method.getDeclaredAnnotation(TestCaseGroup.class) : null;
+        TestCaseGroup declaredAnnotation = this.findTestCaseGroup();
         if (declaredAnnotation != null) {
             return ReflectUtils.getTestCaseInfo(declaredAnnotation);
         }
+        return new int[]{1, 0x3fffff};
+    }
+
+    /**
+     * Finds the TestCaseGroup annotation that applies to this test.
+     * Checks method, origin class, and source class annotations in order.
+     *
+     * @return The first TestCaseGroup annotation found, or null if none is present
+     */
+    public TestCaseGroup findTestCaseGroup() {
+        TestCaseGroup declaredAnnotation = method != null ? method.getDeclaredAnnotation(TestCaseGroup.class) : null;
+        if (declaredAnnotation != null) {
+            return declaredAnnotation;
+        }
         declaredAnnotation = origin != null ? origin.getDeclaredAnnotation(TestCaseGroup.class) : null;
         if (declaredAnnotation != null) {
-            return ReflectUtils.getTestCaseInfo(declaredAnnotation);
+            return declaredAnnotation;
         }
-        declaredAnnotation = src != null ? src.getDeclaredAnnotation(TestCaseGroup.class) : null;
+        return src != null ? src.getDeclaredAnnotation(TestCaseGroup.class) : null;
+    }
+
+    /**
+     * Finds the Tolerance annotation that applies to this test.
+     * Checks method, origin class, and source class annotations in order.
+     *
+     * @return The first Tolerance annotation found, or null if none is present
+     */
+    public Tolerance findTolerance() {
+        Tolerance declaredAnnotation = method != null ? method.getDeclaredAnnotation(Tolerance.class) : null;
         if (declaredAnnotation != null) {
-            return ReflectUtils.getTestCaseInfo(declaredAnnotation);
+            return declaredAnnotation;
         }
-        return new int[]{1, 0x3fffff};
+        declaredAnnotation = origin != null ? origin.getDeclaredAnnotation(Tolerance.class) : null;
+        if (declaredAnnotation != null) {
+            return declaredAnnotation;
+        }
+        return src != null ? src.getDeclaredAnnotation(Tolerance.class) : null;
+    }
+
+    /**
+     * Finds the Benchmark annotation that applies to this test.
+     * Checks method, origin class, and source class annotations in order.
+     *
+     * @return The first Benchmark annotation found, or null if none is present
+     */
+    public Benchmark findBenchmark() {
+        Benchmark declaredAnnotation = method != null ? method.getDeclaredAnnotation(Benchmark.class) : null;
+        if (declaredAnnotation != null) {
+            return declaredAnnotation;
+        }
+        declaredAnnotation = origin != null ? origin.getDeclaredAnnotation(Benchmark.class) : null;
+        if (declaredAnnotation != null) {
+            return declaredAnnotation;
+        }
+        return src != null ? src.getDeclaredAnnotation(Benchmark.class) : null;
     }
 }
\ No newline at end of file
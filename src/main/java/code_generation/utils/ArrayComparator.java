@@ -0,0 +1,186 @@
+package code_generation.utils;
+
+/**
+ * Ordered comparison of primitive array results, done in place on the primitive values.
+ *
+ * <p>{@link TestUtils#valid(Object, Object, String, boolean, boolean)} used to box every element
+ * ({@code int[]} to {@code Integer[]} and so on) and then compare the wrappers one by one. The methods
+ * here walk the primitive arrays directly and only report where the first difference is. Nothing is
+ * boxed unless a mismatch has to be printed, and then only the elements inside the printed window,
+ * see {@link DiffPrinter}.</p>
+ *
+ * <p>The one dimensional methods return the index of the first difference, or -1 if both arrays are
+ * equal. When one array is a prefix of the other the index is the shorter length. The multidimensional
+ * methods return the path of the first difference, e.g. {@code {row, col}}, or null if both arrays are
+ * equal. A path shorter than the number of dimensions means the sub array at that path differs in
+ * length or nullness. {@code double} values are compared with a tolerance by {@link DoubleJudge}.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class ArrayComparator {
+
+    private ArrayComparator() {
+    }
+
+    public static int mismatch(int[] a, int[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    public static int mismatch(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    public static int mismatch(char[] a, char[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    public static int mismatch(boolean[] a, boolean[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    /**
+     * Compares like {@link Float#equals(Object)}, the same as the boxed comparison did.
+     */
+    public static int mismatch(float[] a, float[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (Float.floatToIntBits(a[i]) != Float.floatToIntBits(b[i])) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : n;
+    }
+
+    public static int[] mismatch(int[][] a, int[][] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] == null || b[i] == null) {
+                if (a[i] != b[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int j = mismatch(a[i], b[i]);
+            if (j != -1) {
+                return new int[]{i, j};
+            }
+        }
+        return a.length == b.length ? null : new int[]{n};
+    }
+
+    public static int[] mismatch(long[][] a, long[][] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] == null || b[i] == null) {
+                if (a[i] != b[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int j = mismatch(a[i], b[i]);
+            if (j != -1) {
+                return new int[]{i, j};
+            }
+        }
+        return a.length == b.length ? null : new int[]{n};
+    }
+
+    public static int[] mismatch(char[][] a, char[][] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] == null || b[i] == null) {
+                if (a[i] != b[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int j = mismatch(a[i], b[i]);
+            if (j != -1) {
+                return new int[]{i, j};
+            }
+        }
+        return a.length == b.length ? null : new int[]{n};
+    }
+
+    public static int[] mismatch(boolean[][] a, boolean[][] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] == null || b[i] == null) {
+                if (a[i] != b[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int j = mismatch(a[i], b[i]);
+            if (j != -1) {
+                return new int[]{i, j};
+            }
+        }
+        return a.length == b.length ? null : new int[]{n};
+    }
+
+    public static int[] mismatch(int[][][] a, int[][][] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] == null || b[i] == null) {
+                if (a[i] != b[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int[] sub = mismatch(a[i], b[i]);
+            if (sub != null) {
+                return prepend(i, sub);
+            }
+        }
+        return a.length == b.length ? null : new int[]{n};
+    }
+
+    public static int[] mismatch(char[][][] a, char[][][] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] == null || b[i] == null) {
+                if (a[i] != b[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int[] sub = mismatch(a[i], b[i]);
+            if (sub != null) {
+                return prepend(i, sub);
+            }
+        }
+        return a.length == b.length ? null : new int[]{n};
+    }
+
+    static int[] prepend(int i, int[] path) {
+        int[] ans = new int[path.length + 1];
+        ans[0] = i;
+        System.arraycopy(path, 0, ans, 1, path.length);
+        return ans;
+    }
+}
@@ -0,0 +1,300 @@
+package code_generation.utils;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free parsers for {@code int[]}, {@code long[]}, {@code int[][]} and {@code long[][]} inputs.
+ *
+ * <p>The numbers are read straight from the characters into growable primitive buffers, without the
+ * intermediate {@code List<String>} and boxed lists used by the generic parsers in {@link ReflectUtils}.
+ * Only the strict form {@code [1,-2,3]} / {@code [[1,2],[3]]} (or the same with braces) is handled here.
+ * Anything else, such as spaces, empty tokens or numbers that overflow, makes the scanner return null,
+ * and the caller falls back to the generic parser, which keeps its lenient behaviour for odd inputs.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class ArrayScanner {
+
+    /**
+     * Parses a one dimensional int array.
+     *
+     * @param input the input, e.g. {@code [1,2,3]}
+     * @return the parsed array, or null if the input is not in the strict form
+     */
+    public static int[] scanIntArray(CharSequence input) {
+        IntBuffer values = new IntBuffer(16);
+        int end = scanIntRow(input, 0, values);
+        return end == input.length() ? values.toArray() : null;
+    }
+
+    /**
+     * Parses a one dimensional long array.
+     *
+     * @param input the input, e.g. {@code [1,2,3]}
+     * @return the parsed array, or null if the input is not in the strict form
+     */
+    public static long[] scanLongArray(CharSequence input) {
+        LongBuffer values = new LongBuffer(16);
+        int end = scanLongRow(input, 0, values);
+        return end == input.length() ? values.toArray() : null;
+    }
+
+    /**
+     * Parses a two dimensional int array. All values go into one flat buffer and the rows are cut
+     * from it once the input has been read.
+     *
+     * @param input the input, e.g. {@code [[1,2],[3]]}
+     * @return the parsed array, or null if the input is not in the strict form
+     */
+    public static int[][] scanIntMatrix(CharSequence input) {
+        int n = input.length();
+        if (n < 2) {
+            return null;
+        }
+        char close = closeOf(input.charAt(0));
+        if (close == 0) {
+            return null;
+        }
+        IntBuffer values = new IntBuffer(16);
+        IntBuffer rowEnds = new IntBuffer(16);
+        int i = 1;
+        if (input.charAt(i) != close) {
+            while (true) {
+                i = scanIntRow(input, i, values);
+                if (i < 0 || i >= n) {
+                    return null;
+                }
+                rowEnds.add(values.size);
+                char c = input.charAt(i++);
+                if (c == close) {
+                    break;
+                }
+                if (c != ',') {
+                    return null;
+                }
+            }
+        } else {
+            i++;
+        }
+        if (i != n) {
+            return null;
+        }
+        int[][] ans = new int[rowEnds.size][];
+        for (int r = 0, from = 0; r < rowEnds.size; r++) {
+            int to = rowEnds.data[r];
+            ans[r] = Arrays.copyOfRange(values.data, from, to);
+            from = to;
+        }
+        return ans;
+    }
+
+    /**
+     * Parses a two dimensional long array.
+     *
+     * @param input the input, e.g. {@code [[1,2],[3]]}
+     * @return the parsed array, or null if the input is not in the strict form
+     * @see #scanIntMatrix(CharSequence)
+     */
+    public static long[][] scanLongMatrix(CharSequence input) {
+        int n = input.length();
+        if (n < 2) {
+            return null;
+        }
+        char close = closeOf(input.charAt(0));
+        if (close == 0) {
+            return null;
+        }
+        LongBuffer values = new LongBuffer(16);
+        IntBuffer rowEnds = new IntBuffer(16);
+        int i = 1;
+        if (input.charAt(i) != close) {
+            while (true) {
+                i = scanLongRow(input, i, values);
+                if (i < 0 || i >= n) {
+                    return null;
+                }
+                rowEnds.add(values.size);
+                char c = input.charAt(i++);
+                if (c == close) {
+                    break;
+                }
+                if (c != ',') {
+                    return null;
+                }
+            }
+        } else {
+            i++;
+        }
+        if (i != n) {
+            return null;
+        }
+        long[][] ans = new long[rowEnds.size][];
+        for (int r = 0, from = 0; r < rowEnds.size; r++) {
+            int to = rowEnds.data[r];
+            ans[r] = Arrays.copyOfRange(values.data, from, to);
+            from = to;
+        }
+        return ans;
+    }
+
+    /**
+     * Reads one bracketed row of ints starting at {@code from}.
+     *
+     * @return the index after the closing bracket, or -1 if the row is not in the strict form
+     */
+    private static int scanIntRow(CharSequence input, int from, IntBuffer values) {
+        int n = input.length();
+        if (from >= n) {
+            return -1;
+        }
+        char close = closeOf(input.charAt(from));
+        if (close == 0) {
+            return -1;
+        }
+        int i = from + 1;
+        if (i < n && input.charAt(i) == close) {
+            return i + 1;
+        }
+        while (i < n) {
+            boolean negative = false;
+            if (input.charAt(i) == '-') {
+                negative = true;
+                i++;
+            }
+            int start = i;
+            // 按负数累加 可以表示 Integer.MIN_VALUE
+            long value = 0;
+            char c = 0;
+            while (i < n && (c = input.charAt(i)) >= '0' && c <= '9') {
+                value = value * 10 - (c - '0');
+                if (value < Integer.MIN_VALUE) {
+                    return -1;
+                }
+                i++;
+            }
+            if (i == start || i == n) {
+                return -1;
+            }
+            if (!negative && value == Integer.MIN_VALUE) {
+                return -1;
+            }
+            values.add((int) (negative ? value : -value));
+            i++;
+            if (c == close) {
+                return i;
+            }
+            if (c != ',') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads one bracketed row of longs starting at {@code from}.
+     *
+     * @return the index after the closing bracket, or -1 if the row is not in the strict form
+     */
+    private static int scanLongRow(CharSequence input, int from, LongBuffer values) {
+        int n = input.length();
+        if (from >= n) {
+            return -1;
+        }
+        char close = closeOf(input.charAt(from));
+        if (close == 0) {
+            return -1;
+        }
+        int i = from + 1;
+        if (i < n && input.charAt(i) == close) {
+            return i + 1;
+        }
+        final long limit = Long.MIN_VALUE / 10;
+        while (i < n) {
+            boolean negative = false;
+            if (input.charAt(i) == '-') {
+                negative = true;
+                i++;
+            }
+            int start = i;
+            long value = 0;
+            char c = 0;
+            while (i < n && (c = input.charAt(i)) >= '0' && c <= '9') {
+                int d = c - '0';
+                if (value < limit || value * 10 < Long.MIN_VALUE + d) {
+                    return -1;
+                }
+                value = value * 10 - d;
+                i++;
+            }
+            if (i == start || i == n) {
+                return -1;
+            }
+            if (!negative && value == Long.MIN_VALUE) {
+                return -1;
+            }
+            values.add(negative ? value : -value);
+            i++;
+            if (c == close) {
+                return i;
+            }
+            if (c != ',') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static char closeOf(char open) {
+        return open == '[' ? ']' : open == '{' ? '}' : 0;
+    }
+
+    /**
+     * A growable int array.
+     */
+    static final class IntBuffer {
+
+        int[] data;
+
+        int size;
+
+        IntBuffer(int capacity) {
+            data = new int[capacity];
+        }
+
+        void add(int v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * A growable long array.
+     */
+    static final class LongBuffer {
+
+        long[] data;
+
+        int size;
+
+        LongBuffer(int capacity) {
+            data = new long[capacity];
+        }
+
+        void add(long v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = v;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
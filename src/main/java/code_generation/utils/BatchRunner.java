@@ -0,0 +1,509 @@
+package code_generation.utils;
+
+import code_generation.contest.ParseCodeInfo;
+import code_generation.enums.Verdict;
+import code_generation.proxy.CaseProbe;
+import code_generation.proxy.CaseResult;
+import code_generation.proxy.RunReport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs every generated solution under a package and prints one table of the results.
+ *
+ * <p>The classes generated by {@code Problem.createProblems}, {@code LCContest} and
+ * {@link ProblemEveryDayUtils} call {@link IoUtil#testUtil} from their {@code main} method. The source
+ * directory of the package is searched for such calls, which give the class, the method and the input file
+ * of every problem. The problems run concurrently on {@link #THREADS} threads. Every problem loads its
+ * class in its own class loader, so static fields of one solution never leak into another, and the cached
+ * parsers, invokers and generic types of the loader are evicted afterwards so it can be unloaded. The console
+ * output of a problem is kept and printed below the table only if the problem failed.</p>
+ *
+ * <p>A problem runs on a daemon thread that is abandoned after {@link #TIMEOUT_MS}. Solutions rarely check
+ * the interrupt, so an abandoned thread keeps its slot of the {@link #THREADS} slots until it ends by itself,
+ * which keeps the time column of later problems honest. Once every slot is held by an abandoned thread the
+ * remaining problems are skipped, and the table reports how many threads were abandoned.</p>
+ *
+ * <p>The heap pools are shared by the JVM, so with more than one thread the peak heap is not sampled and
+ * {@code memoryLimitMb} of {@code @TestCaseGroup} is not checked; set {@link #THREADS} to 1 to check it.</p>
+ *
+ * <p>The classes must have been compiled, they are read from the class path. Every case runs by default,
+ * as a regression run should. With {@link #USE_LEDGER} the cases that passed before are skipped, see
+ * {@link ResultLedger}. Both settings are passed to {@link IoUtil#startValid} of every problem, no global
+ * state is changed, so other runs in the same JVM are not affected.</p>
+ * <pre>
+ * public static void main(String[] args) {
+ *     BatchRunner.run("leetcode.contest.weekly_400");
+ * }
+ * </pre>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class BatchRunner {
+
+    /**
+     * 同时运行的题目数量
+     */
+    public static int THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 单个题目的时间限制
+     */
+    public static long TIMEOUT_MS = 10_000;
+
+    /**
+     * 是否跳过上次已通过的用例 回归测试需要运行全部用例 默认关闭
+     */
+    public static boolean USE_LEDGER = false;
+
+    /**
+     * 每个题目最多保留的输出
+     */
+    private static final int MAX_OUTPUT = 1 << 16;
+
+    /**
+     * IoUtil.testUtil(Solution.class, "method", "in.txt", true) 参数除类以外都可以省略
+     */
+    private static final Pattern TEST_UTIL = Pattern.compile(
+            "IoUtil\\s*\\.\\s*testUtil\\s*\\(\\s*([\\w.$]+?)\\s*\\.\\s*class\\s*(?:,\\s*([^,)]+?)\\s*)?(?:,\\s*([^,)]+?)\\s*)?(?:,\\s*(true|false)\\s*)?[,)]");
+
+    /**
+     * 当前线程的输出 用例看门狗线程会继承
+     */
+    private static final InheritableThreadLocal<ByteArrayOutputStream> SINK = new InheritableThreadLocal<>();
+
+    private static final String NOT_COMPILED = "Not Compiled", NO_INPUT = "No Input", NO_METHOD = "No Method", SKIPPED = "Skipped";
+
+    private BatchRunner() {
+    }
+
+    /**
+     * A solution found under the package.
+     */
+    public static class Problem {
+
+        /**
+         * The binary name of the top level class.
+         */
+        public final String className;
+
+        /**
+         * The simple name of the nested class passed to testUtil, null if it is the top level class.
+         */
+        public final String target;
+
+        public final String methodName;
+
+        public final String fileName;
+
+        public final boolean isLongContent;
+
+        public Problem(String className, String target, String methodName, String fileName, boolean isLongContent) {
+            this.className = className;
+            this.target = target;
+            this.methodName = methodName;
+            this.fileName = fileName;
+            this.isLongContent = isLongContent;
+        }
+    }
+
+    /**
+     * The outcome of one problem.
+     */
+    public static class Result {
+
+        public final Problem problem;
+
+        /**
+         * The verdict of the first failed case, or why the problem could not run.
+         */
+        public String verdict;
+
+        /**
+         * The number of cases that ran and were accepted, -1 for constructor classes.
+         */
+        public int cases = -1, accepted;
+
+        public long wallNanos;
+
+        /**
+         * Bytes allocated by the thread of the problem.
+         */
+        public long allocatedBytes;
+
+        public String output = "";
+
+        public Result(Problem problem) {
+            this.problem = problem;
+        }
+
+        public boolean isAccepted() {
+            return Verdict.ACCEPTED.getDesc().equals(verdict);
+        }
+    }
+
+    /**
+     * Entry point for a nightly run; exits with 1 if any problem failed.
+     *
+     * @param args the package name
+     */
+    public static void main(String[] args) {
+        List<Result> results = run(args.length > 0 ? args[0] : "");
+        for (Result result : results) {
+            if (!result.isAccepted()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Discovers and runs every solution under a package and prints the table.
+     *
+     * @param packageName the package, e.g. {@code leetcode.contest.weekly_400}
+     * @return the result of every problem in discovery order
+     */
+    public static List<Result> run(String packageName) {
+        List<Problem> problems = discover(packageName);
+        List<Result> results = new ArrayList<>();
+        if (problems.isEmpty()) {
+            System.out.println("not find any solution in package " + packageName);
+            return results;
+        }
+        long start = System.nanoTime();
+        PrintStream out = System.out, err = System.err;
+        int threads = Math.max(1, THREADS);
+        boolean useLedger = USE_LEDGER;
+        // 被放弃的线程一直占用名额 直到自己结束
+        Semaphore slots = new Semaphore(threads);
+        Set<Thread> abandoned = ConcurrentHashMap.newKeySet();
+        // 并发运行时按线程收集输出
+        PrintStream routed = new PrintStream(new RoutingStream(out), true);
+        System.setOut(routed);
+        System.setErr(routed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Problem problem : problems) {
+                futures.add(pool.submit(() -> supervise(problem, slots, abandoned, threads, useLedger)));
+            }
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+            System.setOut(out);
+            System.setErr(err);
+        }
+        print(packageName, results, System.nanoTime() - start, abandoned.size());
+        return results;
+    }
+
+    /**
+     * Finds the solutions under a package by the testUtil call in their source.
+     *
+     * @param packageName the package
+     * @return the problems sorted by class name
+     */
+    public static List<Problem> discover(String packageName) {
+        List<Problem> problems = new ArrayList<>();
+        String path = packageName.replace('.', File.separatorChar);
+        File dir = new File(IoUtil.buildAbsolutePath() + path);
+        collect(dir, packageName, problems);
+        return problems;
+    }
+
+    private static void collect(File dir, String packageName, List<Problem> problems) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> a.getName().compareTo(b.getName()));
+        for (File file : files) {
+            String name = file.getName();
+            String prefix = packageName.isEmpty() ? "" : packageName + ".";
+            if (file.isDirectory()) {
+                collect(file, prefix + name, problems);
+                continue;
+            }
+            if (!name.endsWith(".java")) {
+                continue;
+            }
+            Matcher matcher = TEST_UTIL.matcher(IoUtil.readContent(file));
+            if (!matcher.find()) {
+                continue;
+            }
+            String simpleName = name.substring(0, name.length() - ".java".length());
+            String referenced = matcher.group(1);
+            referenced = referenced.substring(referenced.lastIndexOf('.') + 1);
+            String methodName = argument(matcher.group(2), IoUtil.DEFAULT_METHOD_NAME);
+            String fileName = argument(matcher.group(3), IoUtil.DEFAULT_READ_FILE);
+            boolean isLongContent = matcher.group(4) == null ? IoUtil.DEFAULT_SUPPORT_LONG_CONTENT : Boolean.parseBoolean(matcher.group(4));
+            problems.add(new Problem(prefix + simpleName, referenced.equals(simpleName) ? null : referenced, methodName, fileName, isLongContent));
+        }
+    }
+
+    /**
+     * Reads a string literal argument; constants other than the constructor marker fall back to the default.
+     */
+    private static String argument(String arg, String defaultValue) {
+        if (arg == null) {
+            return defaultValue;
+        }
+        if (arg.length() >= 2 && arg.startsWith("\"") && arg.endsWith("\"")) {
+            return arg.substring(1, arg.length() - 1).replace("\\\\", "\\");
+        }
+        if (arg.endsWith("ConstructorClass")) {
+            return ParseCodeInfo.ConstructorClass;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Runs a problem on its own daemon thread and abandons it after the timeout.
+     */
+    private static Result supervise(Problem problem, Semaphore slots, Set<Thread> abandoned, int threads, boolean useLedger) throws InterruptedException {
+        Result result = new Result(problem);
+        while (!slots.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            abandoned.removeIf(t -> !t.isAlive());
+            if (abandoned.size() >= threads) {
+                result.verdict = SKIPPED;
+                result.output = "all " + threads + " threads are held by abandoned problems";
+                return result;
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            SINK.set(output);
+            try {
+                // 多个题目同时运行时堆内存是共享的 无法采样
+                runProblem(result, useLedger, threads == 1);
+            } finally {
+                slots.release();
+            }
+        }, null);
+        Thread worker = new Thread(task, "batch-" + problem.className);
+        worker.setDaemon(true);
+        worker.start();
+        try {
+            task.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            worker.interrupt();
+            abandoned.add(worker);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // 放弃的线程可能还在修改原来的结果
+            Result timeout = new Result(problem);
+            timeout.verdict = Verdict.TIME_LIMIT_EXCEEDED.getDesc();
+            timeout.wallNanos = TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            timeout.output = toString(output);
+            return timeout;
+        } catch (ExecutionException e) {
+            result.verdict = Verdict.RUNTIME_ERROR.getDesc();
+        }
+        result.output = toString(output);
+        return result;
+    }
+
+    private static String toString(ByteArrayOutputStream output) {
+        synchronized (output) {
+            return new String(output.toByteArray());
+        }
+    }
+
+    private static void runProblem(Result result, boolean useLedger, boolean heapSampling) {
+        Problem problem = result.problem;
+        long start = System.nanoTime();
+        long allocated = CaseProbe.currentAllocatedBytes();
+        ProblemClassLoader loader = new ProblemClassLoader(problem.className, BatchRunner.class.getClassLoader());
+        CaseReader reader = null;
+        try {
+            Class<?> top = loader.loadClass(problem.className);
+            Class<?> src = problem.target == null ? top : findNested(top, problem.target);
+            File input = new File(IoUtil.wrapperAbsolutePath(top, problem.fileName));
+            if (src == null) {
+                result.verdict = NOT_COMPILED;
+                return;
+            }
+            if (!input.isFile()) {
+                result.verdict = NO_INPUT;
+                return;
+            }
+            reader = problem.isLongContent ? CaseReader.openSegments(input) : CaseReader.open(input);
+            if (ParseCodeInfo.ConstructorClass.equals(problem.methodName)) {
+                boolean ok = IoUtil.handlerConstructorValid(src, reader, problem.methodName, IoUtil.IS_STRICT_EQUAL);
+                result.verdict = (ok ? Verdict.ACCEPTED : Verdict.WRONG_ANSWER).getDesc();
+                return;
+            }
+            Method method = IoUtil.findMethodName(src, problem.methodName);
+            if (method == null) {
+                result.verdict = NO_METHOD;
+                return;
+            }
+            RunReport report = new RunReport();
+            boolean ok = IoUtil.startValid(ReflectUtils.initObjcect(src, null), method, reader, IoUtil.IS_STRICT_EQUAL, true, false, report, useLedger, heapSampling);
+            Verdict verdict = ok ? Verdict.ACCEPTED : Verdict.WRONG_ANSWER;
+            result.cases = report.getResults().size();
+            for (CaseResult caseResult : report.getResults()) {
+                if (caseResult.isAccepted()) {
+                    result.accepted++;
+                } else if (verdict == Verdict.WRONG_ANSWER) {
+                    // 第一个失败用例的结果
+                    verdict = caseResult.verdict;
+                }
+            }
+            result.verdict = verdict.getDesc();
+        } catch (ClassNotFoundException | LinkageError e) {
+            result.verdict = NOT_COMPILED;
+        } catch (Throwable e) {
+            result.verdict = Verdict.RUNTIME_ERROR.getDesc();
+            e.printStackTrace();
+        } finally {
+            IoUtil.close(reader);
+            result.wallNanos = System.nanoTime() - start;
+            result.allocatedBytes = CaseProbe.currentAllocatedBytes() - allocated;
+            ParserPlan.evict(loader);
+            GenericTypeResolver.evict(loader);
+        }
+    }
+
+    private static Class<?> findNested(Class<?> c, String simpleName) {
+        for (Class<?> nested : c.getDeclaredClasses()) {
+            if (nested.getSimpleName().equals(simpleName)) {
+                return nested;
+            }
+            Class<?> found = findNested(nested, simpleName);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static void print(String packageName, List<Result> results, long wallNanos, int abandoned) {
+        int width = "problem".length();
+        for (Result result : results) {
+            width = Math.max(width, result.problem.className.length() - packageName.length());
+        }
+        String row = "%-" + width + "s %-22s %10s %12s %12s%n";
+        StringBuilder sb = new StringBuilder();
+        sb.append("======================================批量运行=======================\n");
+        sb.append(String.format(row, "problem", "verdict", "cases", "time(ms)", "alloc"));
+        int accepted = 0;
+        for (Result result : results) {
+            String name = result.problem.className.substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+            String cases = result.cases < 0 ? "-" : result.accepted + "/" + result.cases;
+            sb.append(String.format(row, name, result.verdict, cases, RunReport.ms(result.wallNanos), RunReport.bytes(result.allocatedBytes)));
+            if (result.isAccepted()) {
+                accepted++;
+            }
+        }
+        sb.append(String.format("problems: %d, accepted: %d, failed: %d, abandoned threads: %d, wall: %s ms%n",
+                results.size(), accepted, results.size() - accepted, abandoned, RunReport.ms(wallNanos)));
+        sb.append("=====================================================================");
+        System.out.println(sb);
+        for (Result result : results) {
+            if (!result.isAccepted() && !result.output.isEmpty()) {
+                System.out.println("---------------------------- " + result.problem.className + " ----------------------------");
+                System.out.println(result.output);
+            }
+        }
+    }
+
+    /**
+     * Writes to the output of the current problem, or to the original stream for other threads.
+     */
+    private static final class RoutingStream extends OutputStream {
+
+        private final OutputStream original;
+
+        RoutingStream(OutputStream original) {
+            this.original = original;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteArrayOutputStream sink = SINK.get();
+            if (sink == null) {
+                original.write(b, off, len);
+                return;
+            }
+            synchronized (sink) {
+                sink.write(b, off, Math.max(0, Math.min(len, MAX_OUTPUT - sink.size())));
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (SINK.get() == null) {
+                original.flush();
+            }
+        }
+    }
+
+    /**
+     * Loads the classes of one solution itself and everything else from the parent.
+     */
+    private static final class ProblemClassLoader extends ChildFirstClassLoader {
+
+        private final String className;
+
+        ProblemClassLoader(String className, ClassLoader parent) {
+            super(parent);
+            this.className = className;
+        }
+
+        @Override
+        protected boolean isOwned(String name) {
+            return name.equals(className) || name.startsWith(className + "$");
+        }
+
+        @Override
+        protected byte[] readClass(String name) throws IOException {
+            try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    return null;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = in.read(buf)) != -1) {
+                    out.write(buf, 0, n);
+                }
+                return out.toByteArray();
+            }
+        }
+    }
+}
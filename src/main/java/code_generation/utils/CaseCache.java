@@ -0,0 +1,578 @@
+package code_generation.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A binary cache of already parsed test cases, stored next to the input file as {@code in.txt.bin}.
+ *
+ * <p>The cache is keyed by a SHA-256 hash of the input file content and the signature of the method
+ * under test. When the key matches, {@link IoUtil#startValid} takes the arguments and expected values
+ * from the mapped cache file and skips the text parsing of {@link ReflectUtils#parseArg} entirely.
+ * When it does not match, the cases parsed during the run are recorded and written back once every
+ * case of the file has been seen.</p>
+ *
+ * <p>Only values built from primitives, boxed primitives, {@link String}, arrays and {@link ArrayList}
+ * are supported. Methods that take or return anything else (for example {@code TreeNode}) are simply
+ * not cached.</p>
+ *
+ * <pre>
+ * file   := magic version keyLength key count offset[count + 1] entry[count]
+ * entry  := voidMarker argCount value[argCount] value
+ * value  := tag payload
+ * </pre>
+ *
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class CaseCache {
+
+    /**
+     * Suffix appended to the input file name.
+     */
+    public static final String SUFFIX = ".bin";
+
+    /**
+     * Input files smaller than this are parsed quickly enough and are not cached,
+     * which keeps small problems free of sidecar files.
+     */
+    public static final long MIN_CACHE_BYTES = 1 << 20;
+
+    private static final int MAGIC = 0x43474343;
+
+    private static final int VERSION = 2;
+
+    private static final byte NULL = 0, INT = 1, LONG = 2, DOUBLE = 3, FLOAT = 4, BOOLEAN = 5, CHAR = 6, STRING = 7,
+            INT_ARRAY = 8, LONG_ARRAY = 9, DOUBLE_ARRAY = 10, CHAR_ARRAY = 11, BOOLEAN_ARRAY = 12, OBJECT_ARRAY = 13, LIST = 14;
+
+    /**
+     * One cached test case.
+     */
+    public static class Entry {
+
+        /**
+         * The parsed arguments, freshly decoded for every call.
+         */
+        public final Object[] args;
+
+        /**
+         * The parsed expected value.
+         */
+        public final Object expect;
+
+        /**
+         * Whether the expected line was {@link IoUtil#VOID_OR_ARGS}, meaning the result is not compared.
+         */
+        public final boolean isVoidMarker;
+
+        Entry(Object[] args, Object expect, boolean isVoidMarker) {
+            this.args = args;
+            this.expect = expect;
+            this.isVoidMarker = isVoidMarker;
+        }
+    }
+
+    /**
+     * The sidecar cache file.
+     */
+    private final File file;
+
+    /**
+     * Hash of the input content and the method signature.
+     */
+    private final byte[] key;
+
+    /**
+     * Loader used to resolve array component types.
+     */
+    private final ClassLoader loader;
+
+    /**
+     * The mapped cache content, null if the cache missed.
+     */
+    private ByteBuffer data;
+
+    /**
+     * Entry offsets into {@link #data}, with one extra offset marking the end.
+     */
+    private int[] offsets;
+
+    /**
+     * Entries recorded during a run that missed the cache are appended to this file as they arrive, so
+     * memory stays constant while streaming; {@link #save(int)} copies them in case order.
+     */
+    private final File spillFile;
+
+    private DataOutputStream spill;
+
+    private long spillSize;
+
+    /**
+     * Position and length of every recorded entry in {@link #spillFile}, indexed by case number.
+     */
+    private long[] spillOffsets = new long[0];
+
+    private int[] spillLengths = new int[0];
+
+    private int recorded;
+
+    /**
+     * Set when a value could not be encoded; the cache is then not written.
+     */
+    private volatile boolean disabled;
+
+    private CaseCache(File file, byte[] key, ClassLoader loader) {
+        this.file = file;
+        this.spillFile = new File(file.getPath() + ".records");
+        this.key = key;
+        this.loader = loader;
+    }
+
+    /**
+     * Opens the cache of an input file for the given method.
+     *
+     * @param input         the input file, may be null when the cases do not come from a file
+     * @param method        the method under test
+     * @param isLongContent whether the input is read as #content# segments
+     * @return the cache, or null if the input is not cacheable
+     */
+    public static CaseCache open(File input, Method method, boolean isLongContent) {
+        return input == null ? null : open(input, method, new InputKey(input, method, isLongContent));
+    }
+
+    /**
+     * Opens the cache of an input file with a key that may be shared with {@link ResultLedger}.
+     *
+     * @param input  the input file, may be null when the cases do not come from a file
+     * @param method the method under test
+     * @param key    the hash of the input and the method
+     * @return the cache, or null if the input is not cacheable
+     */
+    static CaseCache open(File input, Method method, InputKey key) {
+        if (input == null || !input.isFile() || input.length() < MIN_CACHE_BYTES || input.length() > Integer.MAX_VALUE) {
+            return null;
+        }
+        try {
+            CaseCache cache = new CaseCache(new File(input.getPath() + SUFFIX), key.get(), method.getDeclaringClass().getClassLoader());
+            cache.load();
+            return cache;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            System.err.println("case cache disabled " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the cache file matched the current input and method.
+     *
+     * @return true if the cases can be taken from the cache
+     */
+    public boolean isHit() {
+        return data != null;
+    }
+
+    /**
+     * Returns the number of cached cases.
+     *
+     * @return the case count, 0 if the cache missed
+     */
+    public int size() {
+        return offsets == null ? 0 : offsets.length - 1;
+    }
+
+    /**
+     * Decodes a cached case. Every call returns new objects, so the method under test may modify them.
+     *
+     * @param index the zero based case index
+     * @return the decoded case
+     */
+    public Entry get(int index) {
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(offsets[index]);
+        boolean isVoidMarker = buffer.get() != 0;
+        Object[] args = new Object[buffer.getInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = read(buffer);
+        }
+        return new Entry(args, read(buffer), isVoidMarker);
+    }
+
+    /**
+     * Encodes the parsed arguments of a case. Must be called before the method under test runs,
+     * since it may modify its arguments.
+     *
+     * @param args the parsed arguments, may be null for methods without parameters
+     * @return the encoded arguments, or null if they can not be cached
+     */
+    public byte[] encodeArgs(Object[] args) {
+        if (disabled) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            Object[] values = args == null ? new Object[0] : args;
+            out.writeInt(values.length);
+            for (Object value : values) {
+                write(out, value);
+            }
+            return bytes.toByteArray();
+        } catch (IOException | IllegalArgumentException e) {
+            disabled = true;
+            return null;
+        }
+    }
+
+    /**
+     * Records a parsed case so it can be written to the cache after the run.
+     *
+     * @param caseNo       the one based case number
+     * @param encodedArgs  the arguments encoded by {@link #encodeArgs(Object[])}
+     * @param expect       the parsed expected value
+     * @param isVoidMarker whether the expected line was {@link IoUtil#VOID_OR_ARGS}
+     */
+    public void record(int caseNo, byte[] encodedArgs, Object expect, boolean isVoidMarker) {
+        if (disabled || encodedArgs == null) {
+            return;
+        }
+        byte[] entry;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(encodedArgs.length + 16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(isVoidMarker ? 1 : 0);
+            out.write(encodedArgs);
+            write(out, expect);
+            entry = bytes.toByteArray();
+        } catch (IOException | IllegalArgumentException e) {
+            disabled = true;
+            return;
+        }
+        // 并行运行时用例的记录顺序不确定
+        synchronized (this) {
+            if (disabled) {
+                return;
+            }
+            try {
+                if (spill == null) {
+                    spillFile.deleteOnExit();
+                    spill = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+                }
+                if (caseNo >= spillLengths.length) {
+                    int size = Math.max(caseNo + 1, spillLengths.length << 1);
+                    spillOffsets = Arrays.copyOf(spillOffsets, size);
+                    spillLengths = Arrays.copyOf(spillLengths, size);
+                }
+                if (spillLengths[caseNo] != 0) {
+                    return;
+                }
+                spill.write(entry);
+                spillOffsets[caseNo] = spillSize;
+                spillLengths[caseNo] = entry.length;
+                spillSize += entry.length;
+                recorded++;
+            } catch (IOException e) {
+                disabled = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the recorded cases to the cache file, if every case from 1 to {@code caseCount} was recorded.
+     * The recorded cases are dropped afterwards in any case.
+     *
+     * @param caseCount the number of cases in the input file
+     */
+    public synchronized void save(int caseCount) {
+        try {
+            if (spill == null || disabled || isHit() || caseCount <= 0 || recorded != caseCount || spillSize > Integer.MAX_VALUE) {
+                return;
+            }
+            spill.close();
+            File tmp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+                 RandomAccessFile in = new RandomAccessFile(spillFile, "r")) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(caseCount);
+                int offset = 0;
+                for (int caseNo = 1; caseNo <= caseCount; caseNo++) {
+                    if (caseNo >= spillLengths.length || spillLengths[caseNo] == 0) {
+                        throw new IOException("case " + caseNo + " was not recorded");
+                    }
+                    out.writeInt(offset);
+                    offset += spillLengths[caseNo];
+                }
+                out.writeInt(offset);
+                byte[] buf = new byte[256];
+                for (int caseNo = 1; caseNo <= caseCount; caseNo++) {
+                    int length = spillLengths[caseNo];
+                    if (buf.length < length) {
+                        buf = new byte[Math.max(length, buf.length << 1)];
+                    }
+                    in.seek(spillOffsets[caseNo]);
+                    in.readFully(buf, 0, length);
+                    out.write(buf, 0, length);
+                }
+            } catch (IOException e) {
+                System.err.println("write case cache failed " + e.getMessage());
+                tmp.delete();
+                return;
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("write case cache failed " + e.getMessage());
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            System.err.println("write case cache failed " + e.getMessage());
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Drops the recorded cases without writing the cache file. Cases recorded later are ignored.
+     */
+    public synchronized void discard() {
+        // 之后到达的记录 例如被放弃的并行用例 不再写入
+        disabled = true;
+        if (spill == null) {
+            return;
+        }
+        IoUtil.close(spill);
+        spill = null;
+        spillFile.delete();
+        recorded = 0;
+        spillSize = 0;
+        spillOffsets = new long[0];
+        spillLengths = new int[0];
+    }
+
+    /**
+     * Maps the cache file and checks its key; leaves the cache empty on any mismatch.
+     */
+    private void load() throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return;
+            }
+            byte[] stored = new byte[buffer.getInt()];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, key)) {
+                return;
+            }
+            int[] table = new int[buffer.getInt() + 1];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = buffer.getInt();
+            }
+            ByteBuffer content = buffer.slice();
+            if (content.capacity() != table[table.length - 1]) {
+                return;
+            }
+            this.offsets = table;
+            this.data = content;
+        } catch (RuntimeException ignore) {
+            // 缓存文件损坏 当作未命中处理
+        }
+    }
+
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof int[]) {
+            int[] a = (int[]) value;
+            out.writeByte(INT_ARRAY);
+            out.writeInt(a.length);
+            for (int x : a) {
+                out.writeInt(x);
+            }
+        } else if (value instanceof long[]) {
+            long[] a = (long[]) value;
+            out.writeByte(LONG_ARRAY);
+            out.writeInt(a.length);
+            for (long x : a) {
+                out.writeLong(x);
+            }
+        } else if (value instanceof double[]) {
+            double[] a = (double[]) value;
+            out.writeByte(DOUBLE_ARRAY);
+            out.writeInt(a.length);
+            for (double x : a) {
+                out.writeDouble(x);
+            }
+        } else if (value instanceof char[]) {
+            char[] a = (char[]) value;
+            out.writeByte(CHAR_ARRAY);
+            out.writeInt(a.length);
+            for (char x : a) {
+                out.writeChar(x);
+            }
+        } else if (value instanceof boolean[]) {
+            boolean[] a = (boolean[]) value;
+            out.writeByte(BOOLEAN_ARRAY);
+            out.writeInt(a.length);
+            for (boolean x : a) {
+                out.writeBoolean(x);
+            }
+        } else if (value instanceof Object[]) {
+            Object[] a = (Object[]) value;
+            out.writeByte(OBJECT_ARRAY);
+            writeString(out, a.getClass().getComponentType().getName());
+            out.writeInt(a.length);
+            for (Object x : a) {
+                write(out, x);
+            }
+        } else if (value.getClass() == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object x : list) {
+                write(out, x);
+            }
+        } else {
+            throw new IllegalArgumentException("not support cache type " + value.getClass().getName());
+        }
+    }
+
+    private Object read(ByteBuffer in) {
+        byte tag = in.get();
+        int n;
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case FLOAT:
+                return in.getFloat();
+            case BOOLEAN:
+                return in.get() != 0;
+            case CHAR:
+                return in.getChar();
+            case STRING:
+                return readString(in);
+            case INT_ARRAY: {
+                int[] a = new int[in.getInt()];
+                in.asIntBuffer().get(a);
+                in.position(in.position() + a.length * Integer.BYTES);
+                return a;
+            }
+            case LONG_ARRAY: {
+                long[] a = new long[in.getInt()];
+                in.asLongBuffer().get(a);
+                in.position(in.position() + a.length * Long.BYTES);
+                return a;
+            }
+            case DOUBLE_ARRAY: {
+                double[] a = new double[in.getInt()];
+                in.asDoubleBuffer().get(a);
+                in.position(in.position() + a.length * Double.BYTES);
+                return a;
+            }
+            case CHAR_ARRAY: {
+                char[] a = new char[in.getInt()];
+                in.asCharBuffer().get(a);
+                in.position(in.position() + a.length * Character.BYTES);
+                return a;
+            }
+            case BOOLEAN_ARRAY: {
+                boolean[] a = new boolean[in.getInt()];
+                for (int i = 0; i < a.length; i++) {
+                    a[i] = in.get() != 0;
+                }
+                return a;
+            }
+            case OBJECT_ARRAY: {
+                Class<?> component = loadClass(readString(in));
+                n = in.getInt();
+                Object a = Array.newInstance(component, n);
+                for (int i = 0; i < n; i++) {
+                    Array.set(a, i, read(in));
+                }
+                return a;
+            }
+            case LIST: {
+                n = in.getInt();
+                List<Object> list = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            }
+            default:
+                throw new IllegalStateException("unknown cache tag " + tag);
+        }
+    }
+
+    private Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("cache component type not found " + name, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,231 @@
+package code_generation.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * The start position of every test case of an input file, stored next to it as {@code in.txt.idx}.
+ *
+ * <p>Running a {@code @TestCaseGroup} range, e.g. only case 9000 of 10000, used to read and group every
+ * line before the range. The index maps a case number to the position returned by
+ * {@link CaseReader#position()}, so the reader can {@link CaseReader#seek(long) seek} directly to the first
+ * case of the range. It is built on the first ranged run by walking the whole file once, which costs the
+ * same as before, and reused until the file changes.</p>
+ *
+ * <p>The index is keyed by the length and modification time of the input file and by the way lines are
+ * grouped into cases. Hashing the content like {@link CaseCache} would read the whole file again, which is
+ * what the index avoids.</p>
+ *
+ * <pre>
+ * file := magic version length lastModified rawFirst lines longContent count position[count]
+ * </pre>
+ *
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class CaseIndex {
+
+    /**
+     * Suffix appended to the input file name.
+     */
+    public static final String SUFFIX = ".idx";
+
+    /**
+     * Input files smaller than this are walked quickly enough and are not indexed,
+     * which keeps small problems free of sidecar files.
+     */
+    public static final long MIN_INDEX_BYTES = 1 << 16;
+
+    private static final int MAGIC = 0x43474349;
+
+    private static final int VERSION = 1;
+
+    private final File input;
+
+    private final File file;
+
+    /**
+     * 每个用例开头是否有一行原样读取的行 没有参数的方法读取一行 null
+     */
+    private final boolean rawFirst;
+
+    /**
+     * 每个用例的非空行数
+     */
+    private final int lines;
+
+    private final boolean isLongContent;
+
+    /**
+     * 下标 i 是第 i + 1 个用例的位置
+     */
+    private long[] positions;
+
+    private CaseIndex(File input, boolean rawFirst, int lines, boolean isLongContent) {
+        this.input = input;
+        this.file = new File(input.getPath() + SUFFIX);
+        this.rawFirst = rawFirst;
+        this.lines = lines;
+        this.isLongContent = isLongContent;
+    }
+
+    /**
+     * Opens the index of a reader whose cases are grouped like {@link IoUtil#startValid}: one raw line for
+     * a method without parameters, otherwise one non-empty line per parameter, then the expected line.
+     *
+     * @param reader     the reader of the input file
+     * @param paramCount the number of parameters of the method under test
+     * @return the index, or null if the reader is not indexable
+     */
+    public static CaseIndex open(CaseReader reader, int paramCount) {
+        return open(reader, paramCount == 0, paramCount == 0 ? 1 : paramCount + 1);
+    }
+
+    /**
+     * Opens the index of a reader whose cases are a fixed number of non-empty lines, optionally preceded
+     * by one raw line.
+     *
+     * @param reader   the reader of the input file
+     * @param rawFirst whether every case starts with one line that may be empty
+     * @param lines    the number of non-empty lines of every case
+     * @return the index, or null if the reader is not indexable
+     */
+    public static CaseIndex open(CaseReader reader, boolean rawFirst, int lines) {
+        File input = reader.getSource();
+        if (input == null || !input.isFile() || input.length() < MIN_INDEX_BYTES || reader.position() < 0) {
+            return null;
+        }
+        CaseIndex index = new CaseIndex(input, rawFirst, lines, reader.isLongContent());
+        index.load();
+        return index;
+    }
+
+    /**
+     * Returns whether the index file matched the current input.
+     *
+     * @return true if the positions are known
+     */
+    public boolean isHit() {
+        return positions != null;
+    }
+
+    /**
+     * Returns the number of complete cases in the index.
+     *
+     * @return the case count, 0 if the index missed
+     */
+    public int size() {
+        return positions == null ? 0 : positions.length;
+    }
+
+    /**
+     * Moves the reader to the start of a case, building and saving the index first if it missed. When the
+     * index has to be built the reader is walked to the end of the file.
+     *
+     * @param reader the reader of the input file, positioned at its start
+     * @param caseNo the one based case number
+     * @return true if the reader is at the start of the case, false if the file has fewer complete cases,
+     * in which case the reader is back at the start of the file
+     */
+    public boolean seek(CaseReader reader, int caseNo) {
+        if (!isHit()) {
+            build(reader);
+        }
+        if (caseNo < 1 || caseNo > size()) {
+            reader.seek(0);
+            return false;
+        }
+        return reader.seek(positions[caseNo - 1]);
+    }
+
+    /**
+     * Walks the reader once, grouping its lines into cases, and saves the positions.
+     */
+    private void build(CaseReader reader) {
+        long[] found = new long[256];
+        int count = 0;
+        while (reader.hasNext()) {
+            long position = reader.position();
+            if (rawFirst) {
+                reader.next();
+            }
+            int i = 0;
+            while (i < lines && reader.nextNonBlank() != null) {
+                i++;
+            }
+            // 最后一组不完整 不计入索引
+            if (i < lines) {
+                break;
+            }
+            if (count == found.length) {
+                found = Arrays.copyOf(found, count << 1);
+            }
+            found[count++] = position;
+        }
+        positions = Arrays.copyOf(found, count);
+        save();
+    }
+
+    private void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            writeKey(out);
+            out.writeInt(positions.length);
+            for (long position : positions) {
+                out.writeLong(position);
+            }
+        } catch (IOException e) {
+            System.err.println("write case index failed " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("write case index failed " + e.getMessage());
+            tmp.delete();
+        }
+    }
+
+    private void writeKey(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(input.length());
+        out.writeLong(input.lastModified());
+        out.writeBoolean(rawFirst);
+        out.writeInt(lines);
+        out.writeBoolean(isLongContent);
+    }
+
+    /**
+     * Reads the index file and checks its key; leaves the index empty on any mismatch.
+     */
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != input.length()
+                    || in.readLong() != input.lastModified() || in.readBoolean() != rawFirst
+                    || in.readInt() != lines || in.readBoolean() != isLongContent) {
+                return;
+            }
+            long[] table = new long[in.readInt()];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = in.readLong();
+            }
+            this.positions = table;
+        } catch (IOException | RuntimeException ignore) {
+            // 索引文件损坏 当作未命中处理
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package code_generation.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A forward-only source of test input lines.
+ *
+ * <p>Lines are pulled from the underlying source one at a time, so a file backed reader keeps only the
+ * current line in memory and the first case can run while the rest of the file has not been read yet.
+ * The same type also wraps an in-memory list, which is how the operations of a constructor class
+ * replay are fed back into {@link IoUtil#startValid}. Long content files are read through
+ * {@link #openSegments(File)}, which yields the {@code #content#} segments of a memory-mapped file.</p>
+ *
+ * <p>File backed readers know the byte offset of the next line, see {@link #position()}, and can
+ * {@link #seek(long)} back to it, which is how {@link CaseIndex} jumps to the first case of a
+ * {@code @TestCaseGroup} range.</p>
+ *
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class CaseReader implements Iterator<String>, Closeable {
+
+    /**
+     * The line source.
+     */
+    private final Iterator<String> lines;
+
+    /**
+     * Resource released by {@link #close()}, may be null.
+     */
+    private final Closeable resource;
+
+    /**
+     * The file the lines come from, null for in-memory readers.
+     */
+    private final File source;
+
+    /**
+     * Whether the lines are the #content# segments of a long content file.
+     */
+    private final boolean isLongContent;
+
+    /**
+     * Number of lines handed out so far.
+     */
+    private int lineNumber;
+
+    private CaseReader(Iterator<String> lines, Closeable resource, File source, boolean isLongContent) {
+        this.lines = lines;
+        this.resource = resource;
+        this.source = source;
+        this.isLongContent = isLongContent;
+    }
+
+    /**
+     * Wraps an in-memory list of lines.
+     *
+     * @param lines the lines to read
+     * @return a reader over the list
+     */
+    public static CaseReader of(List<String> lines) {
+        return new CaseReader(lines.iterator(), null, null, false);
+    }
+
+    /**
+     * Opens a reader that streams the lines of a file.
+     *
+     * @param file the file to read
+     * @return a reader over the file
+     * @throws IOException if the file can not be opened
+     */
+    public static CaseReader open(File file) throws IOException {
+        LineIterator lines = new LineIterator(new RandomAccessFile(file, "r"));
+        return new CaseReader(lines, lines, file, false);
+    }
+
+    /**
+     * Opens a reader that yields the {@code #content#} segments of a long content file.
+     * The file is memory-mapped and scanned once; only the bytes between two {@code #} are decoded,
+     * and only when the segment is requested. A {@code #} directly followed by another {@code #}
+     * starts a new segment at the second one, the same as the {@code #([^#]+)#} pattern.
+     *
+     * @param file the file to read, encoded in UTF-8
+     * @return a reader over the segments of the file
+     * @throws IOException if the file can not be mapped
+     */
+    public static CaseReader openSegments(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file.getName() + " is larger than 2 GB, can not be mapped");
+            }
+            // 映射在通道关闭后仍然有效
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return new CaseReader(new SegmentIterator(buffer), null, file, true);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lines.hasNext();
+    }
+
+    /**
+     * Returns the next raw line, which may be empty.
+     *
+     * @return the next line
+     * @throws NoSuchElementException if there are no more lines
+     */
+    @Override
+    public String next() {
+        String line = lines.next();
+        lineNumber++;
+        return line;
+    }
+
+    /**
+     * Skips empty lines and returns the next line with content.
+     *
+     * @return the next non-empty line, or null if the source is exhausted
+     */
+    public String nextNonBlank() {
+        while (lines.hasNext()) {
+            String line = next();
+            if (line != null && !line.isEmpty()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the position of the next line in the source, a byte offset for plain files and the offset
+     * of the opening {@code #} for long content files.
+     *
+     * @return the position of the next line, or -1 for in-memory readers
+     */
+    public long position() {
+        return lines instanceof Seekable ? ((Seekable) lines).position() : -1;
+    }
+
+    /**
+     * Moves to a position returned by {@link #position()} earlier. After a seek to any other position
+     * than 0 the line number no longer counts from the start of the source.
+     *
+     * @param position the position of a line
+     * @return true if the reader moved, false for in-memory readers
+     */
+    public boolean seek(long position) {
+        if (!(lines instanceof Seekable)) {
+            return false;
+        }
+        try {
+            ((Seekable) lines).seek(position);
+            if (position == 0) {
+                lineNumber = 0;
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of lines read so far, which is the line number of the last returned line.
+     *
+     * @return the current line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the file the lines are read from.
+     *
+     * @return the source file, or null for in-memory readers
+     */
+    public File getSource() {
+        return source;
+    }
+
+    /**
+     * Returns whether the lines are the #content# segments of a long content file.
+     *
+     * @return true for readers created by {@link #openSegments(File)}
+     */
+    public boolean isLongContent() {
+        return isLongContent;
+    }
+
+    @Override
+    public void close() {
+        IoUtil.close(resource);
+    }
+
+    /**
+     * A line source that can report and restore its position.
+     */
+    private interface Seekable {
+
+        long position();
+
+        void seek(long position) throws IOException;
+    }
+
+    /**
+     * Lazily reads the lines of a file, keeping one line of look-ahead. Lines are split on the bytes
+     * {@code \n}, {@code \r} and {@code \r\n} like {@link java.io.BufferedReader#readLine()}, which never
+     * occur inside a multi-byte character of UTF-8 or GBK, and decoded with the default charset like
+     * {@link java.io.FileReader}. Reading the bytes directly keeps track of the offset of every line.
+     */
+    private static class LineIterator implements Iterator<String>, Seekable, Closeable {
+
+        private final RandomAccessFile file;
+
+        private final Charset charset = Charset.defaultCharset();
+
+        private final byte[] buf = new byte[1 << 16];
+
+        /**
+         * Read position and valid length of {@link #buf}.
+         */
+        private int pos, len;
+
+        /**
+         * File offset of {@code buf[0]}.
+         */
+        private long base;
+
+        /**
+         * Bytes of the line being read.
+         */
+        private byte[] line = new byte[256];
+
+        private String nextLine;
+
+        /**
+         * File offset of {@link #nextLine}.
+         */
+        private long nextStart;
+
+        private boolean isEnd;
+
+        LineIterator(RandomAccessFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextLine != null) {
+                return true;
+            }
+            if (isEnd) {
+                return false;
+            }
+            nextStart = base + pos;
+            try {
+                nextLine = readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            isEnd = nextLine == null;
+            return !isEnd;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            return line;
+        }
+
+        private String readLine() throws IOException {
+            int n = 0;
+            boolean isEmpty = true;
+            while (true) {
+                if (pos == len && !fill()) {
+                    return isEmpty ? null : new String(line, 0, n, charset);
+                }
+                isEmpty = false;
+                byte b = buf[pos++];
+                if (b == '\n') {
+                    return new String(line, 0, n, charset);
+                }
+                if (b == '\r') {
+                    if (pos == len) {
+                        fill();
+                    }
+                    if (pos < len && buf[pos] == '\n') {
+                        pos++;
+                    }
+                    return new String(line, 0, n, charset);
+                }
+                if (n == line.length) {
+                    line = Arrays.copyOf(line, n << 1);
+                }
+                line[n++] = b;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            base += len;
+            pos = 0;
+            len = Math.max(0, file.read(buf));
+            return len > 0;
+        }
+
+        @Override
+        public long position() {
+            return nextLine != null ? nextStart : base + pos;
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            file.seek(position);
+            base = position;
+            pos = len = 0;
+            nextLine = null;
+            isEnd = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Scans a byte buffer for {@code #content#} segments.
+     * {@code #} is a single byte in UTF-8 and never part of a multi-byte sequence, so the bytes can be
+     * searched without decoding them first.
+     */
+    private static class SegmentIterator implements Iterator<String>, Seekable {
+
+        private static final byte SHARP = '#';
+
+        private final ByteBuffer buffer;
+
+        /**
+         * Scan position in the buffer.
+         */
+        private int pos;
+
+        /**
+         * Bounds of the next segment content, {@code start < 0} if it has not been found yet.
+         */
+        private int start = -1, end;
+
+        SegmentIterator(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (start >= 0) {
+                return true;
+            }
+            int limit = buffer.limit();
+            int open = indexOfSharp(pos, limit);
+            while (open >= 0) {
+                int close = indexOfSharp(open + 1, limit);
+                if (close < 0) {
+                    break;
+                }
+                if (close > open + 1) {
+                    start = open + 1;
+                    end = close;
+                    pos = close + 1;
+                    return true;
+                }
+                // ## 空内容 从第二个 # 重新开始
+                open = close;
+            }
+            pos = limit;
+            return false;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            byte[] bytes = new byte[end - start];
+            ByteBuffer segment = buffer.duplicate();
+            segment.position(start);
+            segment.get(bytes);
+            start = -1;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long position() {
+            // 已找到的段从开头的 # 重新扫描
+            return start >= 0 ? start - 1 : pos;
+        }
+
+        @Override
+        public void seek(long position) {
+            pos = (int) position;
+            start = -1;
+        }
+
+        private int indexOfSharp(int from, int limit) {
+            for (int i = from; i < limit; i++) {
+                if (buffer.get(i) == SHARP) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
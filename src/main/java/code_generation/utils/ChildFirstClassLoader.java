@@ -0,0 +1,85 @@
+package code_generation.utils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class loader that defines its own classes before asking the parent, which has the same classes on
+ * its class path. Used to load a solution in isolation ({@link BatchRunner}) or in a newer version
+ * ({@link WatchMode}).
+ *
+ * <p>The package of every class is defined, on Java 8 {@link Class#getPackage()} is null otherwise and
+ * the input file next to the solution can not be located. Java 9 and later define it together with the
+ * class, so the package is only defined once per name and an already defined package is ignored.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+abstract class ChildFirstClassLoader extends ClassLoader {
+
+    /**
+     * 已经定义过的包
+     */
+    private final Set<String> packages = ConcurrentHashMap.newKeySet();
+
+    ChildFirstClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Returns whether a class is defined by this loader instead of the parent.
+     *
+     * @param name the binary name of the class
+     * @return true if the class is loaded by this loader
+     */
+    protected abstract boolean isOwned(String name);
+
+    /**
+     * Reads the bytecode of an owned class.
+     *
+     * @param name the binary name of the class
+     * @return the bytecode, or null if the class does not exist
+     * @throws IOException if the bytecode can not be read
+     */
+    protected abstract byte[] readClass(String name) throws IOException;
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null && isOwned(name)) {
+                c = findClass(name);
+            }
+            if (c == null) {
+                return super.loadClass(name, resolve);
+            }
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes;
+        try {
+            bytes = readClass(name);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        // 包信息用于定位输入文件所在目录
+        int dot = name.lastIndexOf('.');
+        if (dot > 0 && packages.add(name.substring(0, dot))) {
+            try {
+                definePackage(name.substring(0, dot), null, null, null, null, null, null, null);
+            } catch (IllegalArgumentException ignore) {
+                // 已经定义过
+            }
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
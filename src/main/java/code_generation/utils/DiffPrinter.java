@@ -0,0 +1,297 @@
+package code_generation.utils;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prints a wrong answer without turning the whole value into a string.
+ *
+ * <p>{@link TestUtils#printDiffInfo(String, String, boolean)} takes the full {@code Arrays.toString} of
+ * both sides and colors them character by character, which prints megabytes for a 1e6 element answer.
+ * This class walks arrays (primitive or not, any depth), {@link List}s and strings structurally to
+ * find the path of the first difference, e.g. {@code [row, col]} for a matrix, and prints only the
+ * {@link #WINDOW} elements on each side of it, and {@link #ROW_WINDOW} rows on each side at the outer levels:</p>
+ * <pre>
+ * Expect: [..., 7, 8, 9, ...]
+ * Result: [..., 7, 0, 9, ...]
+ * Diff  : first at [12, 3], 5 mismatches, expect length 100000, result length 100000
+ * </pre>
+ * Only the shown elements of a primitive array are boxed.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class DiffPrinter {
+
+    /**
+     * 打印时第一个不同位置前后各显示的元素个数
+     */
+    public static int WINDOW = 10;
+
+    /**
+     * 多维时外层(行)前后各显示的个数
+     */
+    public static int ROW_WINDOW = 2;
+
+    private DiffPrinter() {
+    }
+
+    /**
+     * Prints the difference of two values.
+     *
+     * @param expect the expected value
+     * @param result the actual value
+     */
+    public static void print(Object expect, Object result) {
+        print(expect, result, mismatch(expect, result, DoubleJudge.DEFAULT), DoubleJudge.DEFAULT);
+    }
+
+    /**
+     * Prints the difference of two values whose first mismatch is already known.
+     *
+     * @param expect the expected value
+     * @param result the actual value
+     * @param path   the path of the first mismatch, see {@link #mismatch(Object, Object, DoubleJudge)}
+     * @param judge  the tolerance used to count mismatching {@code double} values
+     */
+    public static void print(Object expect, Object result, int[] path, DoubleJudge judge) {
+        TestUtils.printDiffInfo(window(expect, path, WINDOW), window(result, path, WINDOW));
+        // 单个值不需要位置信息
+        if (path == null || path.length == 0) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Diff  : first at ").append(Arrays.toString(path));
+        sb.append(", ").append(countMismatches(expect, result, judge)).append(" mismatches");
+        int e = length(expect), r = length(result);
+        if (e >= 0 || r >= 0) {
+            sb.append(", expect length ").append(e).append(", result length ").append(r);
+        }
+        System.out.println(sb);
+    }
+
+    /**
+     * Finds the first difference of two values.
+     *
+     * @param expect the expected value
+     * @param result the actual value
+     * @param judge  the tolerance of {@code double} values
+     * @return the index at every level down to the first difference, an empty path if the values
+     * differ as a whole (e.g. one of them is null), or null if they are equal
+     */
+    public static int[] mismatch(Object expect, Object result, DoubleJudge judge) {
+        // 字符串只在最外层按字符比较 作为元素时整体比较
+        if (expect instanceof CharSequence && result instanceof CharSequence) {
+            CharSequence a = (CharSequence) expect, b = (CharSequence) result;
+            int n = Math.min(a.length(), b.length());
+            for (int i = 0; i < n; i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    return new int[]{i};
+                }
+            }
+            return a.length() == b.length() ? null : new int[]{n};
+        }
+        return mismatchIn(expect, result, judge);
+    }
+
+    private static int[] mismatchIn(Object expect, Object result, DoubleJudge judge) {
+        if (expect == result) {
+            return null;
+        }
+        if (expect == null || result == null) {
+            return new int[0];
+        }
+        if (expect instanceof int[] && result instanceof int[]) {
+            return path(ArrayComparator.mismatch((int[]) expect, (int[]) result));
+        }
+        if (expect instanceof long[] && result instanceof long[]) {
+            return path(ArrayComparator.mismatch((long[]) expect, (long[]) result));
+        }
+        if (expect instanceof char[] && result instanceof char[]) {
+            return path(ArrayComparator.mismatch((char[]) expect, (char[]) result));
+        }
+        if (expect instanceof boolean[] && result instanceof boolean[]) {
+            return path(ArrayComparator.mismatch((boolean[]) expect, (boolean[]) result));
+        }
+        if (expect instanceof double[] && result instanceof double[]) {
+            return path(judge.mismatch((double[]) expect, (double[]) result));
+        }
+        if (expect instanceof float[] && result instanceof float[]) {
+            return path(ArrayComparator.mismatch((float[]) expect, (float[]) result));
+        }
+        if (isContainer(expect) && isContainer(result)) {
+            int m = length(expect), k = length(result), n = Math.min(m, k);
+            for (int i = 0; i < n; i++) {
+                int[] sub = mismatchIn(get(expect, i), get(result, i), judge);
+                if (sub != null) {
+                    return ArrayComparator.prepend(i, sub);
+                }
+            }
+            return m == k ? null : new int[]{n};
+        }
+        return isLeafEqual(expect, result, judge) ? null : new int[0];
+    }
+
+    /**
+     * Counts the differing leaves of two values. Elements present on one side only count as mismatches.
+     *
+     * @param expect the expected value
+     * @param result the actual value
+     * @param judge  the tolerance of {@code double} values
+     * @return the number of mismatches
+     */
+    public static long countMismatches(Object expect, Object result, DoubleJudge judge) {
+        if (expect instanceof CharSequence && result instanceof CharSequence) {
+            CharSequence a = (CharSequence) expect, b = (CharSequence) result;
+            long c = Math.abs(a.length() - b.length());
+            for (int i = 0, n = Math.min(a.length(), b.length()); i < n; i++) {
+                if (a.charAt(i) != b.charAt(i)) c++;
+            }
+            return c;
+        }
+        return countIn(expect, result, judge);
+    }
+
+    private static long countIn(Object expect, Object result, DoubleJudge judge) {
+        if (expect == result) {
+            return 0;
+        }
+        if (expect == null || result == null) {
+            return 1;
+        }
+        if (expect instanceof int[] && result instanceof int[]) {
+            int[] a = (int[]) expect, b = (int[]) result;
+            long c = Math.abs(a.length - b.length);
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                if (a[i] != b[i]) c++;
+            }
+            return c;
+        }
+        if (expect instanceof long[] && result instanceof long[]) {
+            long[] a = (long[]) expect, b = (long[]) result;
+            long c = Math.abs(a.length - b.length);
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                if (a[i] != b[i]) c++;
+            }
+            return c;
+        }
+        if (expect instanceof char[] && result instanceof char[]) {
+            char[] a = (char[]) expect, b = (char[]) result;
+            long c = Math.abs(a.length - b.length);
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                if (a[i] != b[i]) c++;
+            }
+            return c;
+        }
+        if (expect instanceof boolean[] && result instanceof boolean[]) {
+            boolean[] a = (boolean[]) expect, b = (boolean[]) result;
+            long c = Math.abs(a.length - b.length);
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                if (a[i] != b[i]) c++;
+            }
+            return c;
+        }
+        if (expect instanceof double[] && result instanceof double[]) {
+            double[] a = (double[]) expect, b = (double[]) result;
+            long c = Math.abs(a.length - b.length);
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                if (!judge.accept(a[i], b[i])) c++;
+            }
+            return c;
+        }
+        if (expect instanceof float[] && result instanceof float[]) {
+            float[] a = (float[]) expect, b = (float[]) result;
+            long c = Math.abs(a.length - b.length);
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                if (Float.floatToIntBits(a[i]) != Float.floatToIntBits(b[i])) c++;
+            }
+            return c;
+        }
+        if (isContainer(expect) && isContainer(result)) {
+            int m = length(expect), k = length(result);
+            long c = Math.abs(m - k);
+            for (int i = 0, n = Math.min(m, k); i < n; i++) {
+                c += countIn(get(expect, i), get(result, i), judge);
+            }
+            return c;
+        }
+        return isLeafEqual(expect, result, judge) ? 0 : 1;
+    }
+
+    /**
+     * Formats the part of a value around a path, in the format of {@link java.util.Arrays#deepToString(Object[])}.
+     * At every level only the elements within {@code radius} of the path index are shown, the others are
+     * replaced by {@code ...}. A string is cut the same way, by characters.
+     *
+     * @param value  the value to format, may be null
+     * @param path   the index to center on at each level, missing levels are centered on 0
+     * @param radius the number of elements shown on each side of the center
+     * @return the formatted window
+     */
+    public static String window(Object value, int[] path, int radius) {
+        StringBuilder sb = new StringBuilder();
+        if (value instanceof CharSequence) {
+            CharSequence s = (CharSequence) value;
+            int center = path != null && path.length > 0 ? path[0] : 0;
+            int from = Math.max(0, Math.min(center, s.length()) - radius), to = Math.min(s.length(), center + radius + 1);
+            return sb.append(from > 0 ? "..." : "").append(s, from, to).append(to < s.length() ? "..." : "").toString();
+        }
+        appendWindow(sb, value, path, 0, radius);
+        return sb.toString();
+    }
+
+    private static void appendWindow(StringBuilder sb, Object value, int[] path, int depth, int radius) {
+        if (!isContainer(value)) {
+            sb.append(value);
+            return;
+        }
+        int n = length(value);
+        int center = path != null && depth < path.length ? path[depth] : 0;
+        // 外层只显示相邻的几行
+        int shown = n > 0 && isContainer(get(value, 0)) ? Math.min(radius, ROW_WINDOW) : radius;
+        int from = Math.max(0, Math.min(center, n) - shown), to = Math.min(n, center + shown + 1);
+        sb.append('[');
+        if (from > 0) {
+            sb.append("...");
+        }
+        for (int i = from; i < to; i++) {
+            if (i > from || from > 0) {
+                sb.append(", ");
+            }
+            // 只在窗口内装箱
+            appendWindow(sb, get(value, i), path, depth + 1, radius);
+        }
+        if (to < n) {
+            sb.append(to > 0 ? ", ..." : "...");
+        }
+        sb.append(']');
+    }
+
+    private static boolean isLeafEqual(Object expect, Object result, DoubleJudge judge) {
+        if (expect instanceof Double && result instanceof Double) {
+            return judge.accept((Double) expect, (Double) result);
+        }
+        return expect.equals(result);
+    }
+
+    private static boolean isContainer(Object value) {
+        return value instanceof List || value != null && value.getClass().isArray();
+    }
+
+    private static int length(Object value) {
+        if (value instanceof List) {
+            return ((List<?>) value).size();
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        return value != null && value.getClass().isArray() ? Array.getLength(value) : -1;
+    }
+
+    private static Object get(Object container, int i) {
+        return container instanceof List ? ((List<?>) container).get(i) : Array.get(container, i);
+    }
+
+    private static int[] path(int index) {
+        return index == -1 ? null : new int[]{index};
+    }
+}
@@ -0,0 +1,115 @@
+package code_generation.utils;
+
+import code_generation.annotation.Tolerance;
+
+/**
+ * Compares floating point answers with an absolute and a relative tolerance.
+ *
+ * <p>Comparison used to round both sides to five decimal places through
+ * {@code String.format("%.5f")} and {@link Double#parseDouble(String)}, a string round trip per element.
+ * A judge compares the primitive values directly: a result is accepted when
+ * {@code |expect - result| <= absolute} or {@code |expect - result| <= relative * |expect|}.
+ * NaN only matches NaN and an infinity only matches itself.</p>
+ * @author wuxin0011
+ * @see Tolerance
+ * @since 1.0
+ */
+public final class DoubleJudge {
+
+    /**
+     * The judge used when no {@link Tolerance} is declared.
+     */
+    public static final DoubleJudge DEFAULT = new DoubleJudge(1e-5, 1e-5);
+
+    /**
+     * The accepted absolute error.
+     */
+    public final double absolute;
+
+    /**
+     * The accepted error relative to the expected value.
+     */
+    public final double relative;
+
+    public DoubleJudge(double absolute, double relative) {
+        this.absolute = absolute;
+        this.relative = relative;
+    }
+
+    /**
+     * Returns the judge declared by an annotation.
+     *
+     * @param tolerance the annotation, may be null
+     * @return the declared judge, or {@link #DEFAULT} if the annotation is null
+     */
+    public static DoubleJudge of(Tolerance tolerance) {
+        return tolerance == null ? DEFAULT : new DoubleJudge(tolerance.absolute(), tolerance.relative());
+    }
+
+    /**
+     * Checks one value.
+     *
+     * @param expect the expected value
+     * @param result the actual value
+     * @return true if the result is within the tolerance
+     */
+    public boolean accept(double expect, double result) {
+        if (expect == result) {
+            return true;
+        }
+        if (Double.isNaN(expect) || Double.isNaN(result)) {
+            return Double.isNaN(expect) && Double.isNaN(result);
+        }
+        if (Double.isInfinite(expect) || Double.isInfinite(result)) {
+            return false;
+        }
+        double diff = Math.abs(expect - result);
+        return diff <= absolute || diff <= relative * Math.abs(expect);
+    }
+
+    /**
+     * Finds the first value out of tolerance, in the convention of {@link ArrayComparator}.
+     *
+     * @param expect the expected values
+     * @param result the actual values
+     * @return the index of the first difference, or -1 if all values are accepted
+     */
+    public int mismatch(double[] expect, double[] result) {
+        int n = Math.min(expect.length, result.length);
+        for (int i = 0; i < n; i++) {
+            if (!accept(expect[i], result[i])) {
+                return i;
+            }
+        }
+        return expect.length == result.length ? -1 : n;
+    }
+
+    /**
+     * Finds the first value out of tolerance, in the convention of {@link ArrayComparator}.
+     *
+     * @param expect the expected values
+     * @param result the actual values
+     * @return the path of the first difference, or null if all values are accepted
+     */
+    public int[] mismatch(double[][] expect, double[][] result) {
+        int n = Math.min(expect.length, result.length);
+        for (int i = 0; i < n; i++) {
+            if (expect[i] == null || result[i] == null) {
+                if (expect[i] != result[i]) {
+                    return new int[]{i};
+                }
+                continue;
+            }
+            int j = mismatch(expect[i], result[i]);
+            if (j != -1) {
+                return new int[]{i, j};
+            }
+        }
+        return expect.length == result.length ? null : new int[]{n};
+    }
+
+    @Override
+    public String toString() {
+        return "absolute = " + absolute + ", relative = " + relative;
+    }
+}
@@ -0,0 +1,185 @@
+package code_generation.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the generic type of a parameter or return type, e.g. {@code List<List<Integer>>}, from the
+ * signature kept in the class file.
+ *
+ * <p>{@link IoUtil#findListReturnTypeMethod(Class, String, String, int, int)} opens the source file of
+ * the solution and scans it line by line to read the same text. That needs the source on disk and only
+ * sees the first line that contains the method name. Here {@link Method#getGenericParameterTypes()} and
+ * {@link Method#getGenericReturnType()} are read once per method or constructor and cached. The names are
+ * formatted the way they are written in source, without spaces, so they can be matched against
+ * {@code "List<Integer>"} and the like.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class GenericTypeResolver {
+
+    /**
+     * 下标 0 是返回值 之后依次是参数
+     */
+    private static final Map<Executable, String[]> CACHE = new ConcurrentHashMap<>();
+
+    private GenericTypeResolver() {
+    }
+
+    /**
+     * Returns the generic type name of a parameter or of the return type.
+     *
+     * @param executable the method or constructor
+     * @param idx        the parameter index, -1 for the return type
+     * @return the type name, e.g. {@code List<List<Integer>>}
+     */
+    public static String typeName(Executable executable, int idx) {
+        String[] names = CACHE.get(executable);
+        if (names == null) {
+            names = CACHE.computeIfAbsent(executable, GenericTypeResolver::compile);
+        }
+        return names[idx + 1];
+    }
+
+    /**
+     * Returns the generic type name of a parameter or of the return type whose raw type is known. A void
+     * method is compared by a modified parameter, so for the return type the first parameter of that raw
+     * type is used when the return type does not match.
+     *
+     * @param executable the method or constructor
+     * @param idx        the parameter index, -1 for the return type
+     * @param type       the expected raw type name, e.g. {@code List}
+     * @return the type name, or null if no type with that raw type is found
+     */
+    public static String typeName(Executable executable, int idx, String type) {
+        String name = typeName(executable, idx);
+        if (rawName(name).equals(type)) {
+            return name;
+        }
+        if (idx == -1) {
+            for (int i = 0; i < executable.getParameterCount(); i++) {
+                if (rawName(typeName(executable, i)).equals(type)) {
+                    return typeName(executable, i);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops the type names of the methods and constructors declared by classes of a class loader, so a
+     * reloaded class does not keep the previous loader reachable.
+     *
+     * @param loader the discarded class loader
+     */
+    static void evict(ClassLoader loader) {
+        CACHE.keySet().removeIf(e -> e.getDeclaringClass().getClassLoader() == loader);
+    }
+
+    private static String rawName(String name) {
+        int i = name.indexOf('<');
+        return i == -1 ? name : name.substring(0, i);
+    }
+
+    private static String[] compile(Executable executable) {
+        Type[] parameters = executable.getGenericParameterTypes();
+        String[] names = new String[parameters.length + 1];
+        names[0] = executable instanceof Method ? format(((Method) executable).getGenericReturnType()) : "void";
+        for (int i = 0; i < parameters.length; i++) {
+            names[i + 1] = format(parameters[i]);
+        }
+        return names;
+    }
+
+    /**
+     * Finds the method or constructor a parser is compiled for. The class and its nested classes are
+     * searched, the same scope as the source file of the class.
+     *
+     * @param c          the class declaring the method, or its outer class
+     * @param methodName the method name; the binary name of a class for a constructor
+     * @param type       the raw type name of the parameter or return type, e.g. {@code List}
+     * @param idx        the parameter index, -1 for the return type
+     * @param argsSize   the number of parameters, ignored for the return type
+     * @return the method or constructor, or null if there is none
+     */
+    public static Executable find(Class<?> c, String methodName, String type, int idx, int argsSize) {
+        if (c == null || methodName == null) {
+            return null;
+        }
+        // 构造函数的名称是类的全名 内部类用 $ 分隔
+        String name = methodName.substring(Math.max(methodName.lastIndexOf('.'), methodName.lastIndexOf('$')) + 1);
+        List<Executable> candidates = new ArrayList<>();
+        collect(c, name, idx, argsSize, candidates);
+        for (Executable candidate : candidates) {
+            Class<?> raw = idx == -1 ? ((Method) candidate).getReturnType() : candidate.getParameterTypes()[idx];
+            if (raw.getSimpleName().equals(type)) {
+                return candidate;
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    private static void collect(Class<?> c, String name, int idx, int argsSize, List<Executable> candidates) {
+        if (idx != -1 && c.getSimpleName().equals(name)) {
+            for (Constructor<?> constructor : c.getDeclaredConstructors()) {
+                if (constructor.getParameterCount() == argsSize) {
+                    candidates.add(constructor);
+                }
+            }
+        }
+        for (Method method : c.getDeclaredMethods()) {
+            if (method.isSynthetic() || !method.getName().equals(name)) {
+                continue;
+            }
+            if (idx == -1 || method.getParameterCount() == argsSize && idx < argsSize) {
+                candidates.add(method);
+            }
+        }
+        for (Class<?> inner : c.getDeclaredClasses()) {
+            collect(inner, name, idx, argsSize, candidates);
+        }
+    }
+
+    /**
+     * Formats a type the way it is written in source, e.g. {@code List<List<Integer>>} or {@code int[]}.
+     *
+     * @param type the type
+     * @return the type name without spaces
+     */
+    public static String format(Type type) {
+        if (type instanceof Class) {
+            return ((Class<?>) type).getSimpleName();
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType p = (ParameterizedType) type;
+            StringBuilder sb = new StringBuilder(format(p.getRawType())).append('<');
+            Type[] arguments = p.getActualTypeArguments();
+            for (int i = 0; i < arguments.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(format(arguments[i]));
+            }
+            return sb.append('>').toString();
+        }
+        if (type instanceof GenericArrayType) {
+            return format(((GenericArrayType) type).getGenericComponentType()) + "[]";
+        }
+        if (type instanceof WildcardType) {
+            // ? extends Integer 按 Integer 处理
+            Type[] upper = ((WildcardType) type).getUpperBounds();
+            return upper.length == 0 ? "Object" : format(upper[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return ((TypeVariable<?>) type).getName();
+        }
+        return type.getTypeName();
+    }
+}
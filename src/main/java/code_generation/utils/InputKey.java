@@ -0,0 +1,47 @@
+package code_generation.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The SHA-256 hash of an input file and the signature of the method under test, computed at most once per
+ * run and shared by {@link CaseCache} and {@link ResultLedger}, which both key their sidecar file with it.
+ * @author wuxin0011
+ * @since 1.0
+ */
+final class InputKey {
+
+    private final File input;
+
+    private final String signature;
+
+    private byte[] key;
+
+    InputKey(File input, Method method, boolean isLongContent) {
+        this.input = input;
+        this.signature = method.toGenericString() + (isLongContent ? "#long" : "");
+    }
+
+    /**
+     * Returns the hash, reading the input file on the first call only.
+     *
+     * @return the hash of the content and the signature
+     */
+    byte[] get() throws IOException, NoSuchAlgorithmException {
+        if (key == null) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ)) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            digest.update(signature.getBytes(StandardCharsets.UTF_8));
+            key = digest.digest();
+        }
+        return key;
+    }
+}
@@ -3,6 +3,12 @@ package code_generation.utils;
 
 import code_generation.config.LocalConfig;
 import code_generation.contest.ParseCodeInfo;
+import code_generation.enums.Verdict;
+import code_generation.proxy.CaseProbe;
+import code_generation.proxy.CaseResult;
+import code_generation.proxy.CaseWatchdog;
+import code_generation.proxy.RunReport;
+import code_generation.proxy.SteadyStateBenchmark;
 import code_generation.proxy.TestData;
 
 import java.io.*;
@@ -12,8 +18,9 @@ import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class providing various helper methods for I/O operations, file handling, and testing utilities.
@@ -225,24 +232,47 @@ public class IoUtil {
      * @param isStrict        a boolean flag indicating whether strict equality checks should be applied
      */
     public static void testUtil(Class<?> src, String methodName, String fileName, boolean openLongContent, boolean isStrict) {
+        testUtil(src, methodName, fileName, openLongContent, isStrict, false);
+    }
+
+
+    /**
+     * Invokes the test utility with comprehensive parameters for testing a class, optionally
+     * running independent test cases in parallel.
+     * Parallel mode creates a new solution instance for every case and spreads the cases over a
+     * fork-join pool; failures are still reported in input order. It has no effect on constructor
+     * class replays.
+     *
+     * @param src             the Class object representing the type to be tested
+     * @param methodName      the name of the method to be invoked during testing;
+     *                        if set to a default value, it automatically invokes a method other than "main"
+     * @param fileName        the name of the file containing test input data
+     * @param openLongContent a boolean flag indicating whether to enable parsing of long content
+     * @param isStrict        a boolean flag indicating whether strict equality checks should be applied
+     * @param parallel        a boolean flag indicating whether test cases should run in parallel
+     */
+    public static void testUtil(Class<?> src, String methodName, String fileName, boolean openLongContent, boolean isStrict, boolean parallel) {
         check(src, methodName, fileName);
         boolean find = false;
+        CaseReader reader = null;
         try {
 
-            List<String> inputList = readFile(src, fileName, openLongContent);
-            if (inputList == null) {
+            reader = openCaseReader(src, fileName, openLongContent);
+            if (reader == null) {
                 System.exit(0);
             }
             // 构造类对拍
             if (ParseCodeInfo.ConstructorClass.equals(methodName)) {
                 find = true;
-                handlerConstructorValid(src, inputList, methodName, isStrict);
+                handlerConstructorValid(src, reader, methodName, isStrict);
             } else {
                 Object obj = ReflectUtils.initObjcect(src, null);
                 Method method = findMethodName(src, methodName);
                 if (method != null) {
                     find = true;
-                    startValid(obj, method, inputList, isStrict, true);
+                    startValid(obj, method, reader, isStrict, true, parallel);
+                    // 有 @Benchmark 时再测量稳态耗时
+                    SteadyStateBenchmark.start(src, method, fileName, openLongContent);
                 }
 
 
@@ -252,6 +282,8 @@ public class IoUtil {
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            close(reader);
         }
     }
 
@@ -267,141 +299,128 @@ public class IoUtil {
      *                   method names, arguments, and expected results
      * @param methodName the name of the method to be validated (not directly used in the method)
      * @param isStrict   a boolean flag indicating whether strict validation should be applied
+     * @return true if every group was accepted
      */
-    public static void handlerConstructorValid(Class<?> src, List<String> inputList, String methodName, boolean isStrict) {
-        String[] names = null, args = null, expect = null;
-        // 是否是测试阶段
-        boolean isTest = false;
-
-        if (isTest) {
-            System.err.println("constructor class is test ... ");
-        }
-
-        final String className = src.getSimpleName();
-
-        Constructor constructor = src.getDeclaredConstructors()[0];
-        constructor.setAccessible(true);
-
-        Class[] parameterTypes = constructor.getParameterTypes();
-        Object[] constructorArgs = null;
-
-
-        Method[] declaredMethods = src.getDeclaredMethods();
-
-
-        List<String> result = null;
-
-        int runTimes = 0;
+    public static boolean handlerConstructorValid(Class<?> src, List<String> inputList, String methodName, boolean isStrict) {
+        return handlerConstructorValid(src, CaseReader.of(inputList), methodName, isStrict);
+    }
 
-        Map<String, Method> map = new HashMap<>();
-        for (Method method : declaredMethods) {
-            method.setAccessible(true);
-            map.put(method.getName(), method);
-        }
 
-        int t = 0;
-        int compareTimes = 0;
+    /**
+     * Validates the constructor and methods of a given class, reading the test data from a
+     * {@link CaseReader} one line at a time.
+     * Every group of three lines is compiled into an {@link OperationPlan} and replayed as soon as it has been read.
+     * A {@code @TestCaseGroup} range starts at its first group through the {@link CaseIndex} of the file.
+     * With a {@code timeLimitMs} every replay runs under a {@link CaseWatchdog}, the whole replay of a group
+     * counts as its invocation; the run stops at the first abandoned group.
+     *
+     * @param src        the Class object representing the class to be validated
+     * @param reader     the source of the test data, in groups of three lines:
+     *                   method names, arguments, and expected results
+     * @param methodName the name of the method to be validated (not directly used in the method)
+     * @param isStrict   a boolean flag indicating whether strict validation should be applied
+     * @return true if every group was accepted
+     */
+    public static boolean handlerConstructorValid(Class<?> src, CaseReader reader, String methodName, boolean isStrict) {
+        String nameLine = null, argLine = null;
         TestData testData = new TestData(src);
         int[] testGroup = testData == null || testData.testCaseGroup == null ? new int[]{1, 0x3fffff} : testData.testCaseGroup;
-        boolean isTestCase = false;
+        // 方法表只解析一次 每组输入编译成操作数组后回放
+        OperationPlan plan = new OperationPlan(src, isStrict, testData == null ? DoubleJudge.DEFAULT : testData.doubleJudge);
+        long timeLimitNanos = testData == null ? 0 : TimeUnit.MILLISECONDS.toNanos(testData.timeLimitMs);
+        CaseWatchdog watchdog = timeLimitNanos > 0 ? new CaseWatchdog() : null;
+        int t = 0;
+        int compareTimes = 0;
         List<String> errorTimes = new ArrayList<>();
-        for (int k = 0; k < inputList.size(); k++) {
-            String s = inputList.get(k);
-            if (StringUtils.isEmpty(s)) {
-                continue;
+        if (testGroup[0] > 1) {
+            CaseIndex index = CaseIndex.open(reader, false, 3);
+            if (index != null && index.seek(reader, testGroup[0])) {
+                compareTimes = testGroup[0] - 1;
             }
-            // System.out.println(s);
-            t++;
-            if (t % 3 == 1) {
-                names = ReflectUtils.oneStringArray(s);
-                for (int i = 0; i < names.length; i++) {
-                    names[i] = StringUtils.ingoreString(names[i]);
+        }
+        try {
+            while (reader.hasNext()) {
+                String s = reader.next();
+                if (StringUtils.isEmpty(s)) {
+                    continue;
                 }
-            } else if (t % 3 == 2) {
-                args = ReflectUtils.parseConstrunctorClassString(s);
-            } else if (t % 3 == 0) {
-                expect = ReflectUtils.parseConstrunctorClassString(s);
-            }
-
-
-            // 每三行内容为一组 需要填充调用的方法名，填入结果 以及期望结果
-            if (t % 3 == 0) {
-
-                Object obj = null;
-                int a = 0, b = 0, deep = 0;
-
-                // check
-                if (args.length != expect.length || args.length != names.length || expect.length != names.length) {
-                    throw new RuntimeException("result not mathch palce check");
+                t++;
+                if (t % 3 == 1) {
+                    nameLine = s;
+                    continue;
                 }
-
-                compareTimes++;
-                isTestCase = testGroup == null ? true : testGroup[0] <= compareTimes && compareTimes <= testGroup[1];
-                if (!isTestCase) {
+                if (t % 3 == 2) {
+                    argLine = s;
                     continue;
                 }
-
-
-                for (int index = 0; index < names.length; index++) {
-
-                    String name = names[index];
-
-                    if (StringUtils.isEmpty(name)) {
-                        continue;
-                    }
-
-
-                    if (isTest) {
-                        System.out.println();
-                        System.out.println("name   =   " + name);
-                        System.out.println("args   =   " + args[index]);
-                        System.out.println("exp    =   " + expect[index]);
-                        continue;
-                    }
-
-                    if (name.equals(className)) {
-                        //  构造函数实例化
-                        try {
-                            result = new ArrayList<>();
-                            ReflectUtils.handlerConstructorMethodInput(args[index], result);
-                            obj = handlerConstructorMethod(constructor, result, src);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            obj = null;
-                        }
-                    } else {
-                        Objects.requireNonNull(obj, "obj is null");
-                        Method method = map.get(name);
-                        if (!map.containsKey(name)) {
-                            throw new RuntimeException("not find method " + name + ", place check your format !");
-                        }
-                        result = new ArrayList<>();
-                        ReflectUtils.handlerConstructorMethodInput(args[index], result, method);
-                        ReflectUtils.handlerConstructorMethodOutput(expect[index], result, method);
-                        boolean isOk = startValid(obj, map.get(name), result, isStrict, false);
-                        if (!isOk) {
-                            String errorInfo = "Run CompareTimes :  " + compareTimes + "\nCall Method      :  " + name + "\nArgs Index       :  " + index + "\nArgs             :  " + args[index];
-                            errorTimes.add(errorInfo + "\n");
-                        }
+                // 每三行内容为一组 方法名 参数 以及期望结果
+                compareTimes++;
+                if (testGroup[0] <= compareTimes && compareTimes <= testGroup[1]) {
+                    plan.compile(nameLine, argLine, s);
+                    if (watchdog == null) {
+                        plan.replay(compareTimes, errorTimes);
+                    } else if (!replayWatched(plan, watchdog, compareTimes, errorTimes, timeLimitNanos)) {
+                        break;
                     }
                 }
-
-                // clear
-                args = names = expect = null;
-                result = null;
+                nameLine = argLine = null;
+            }
+        } finally {
+            if (watchdog != null) {
+                watchdog.close();
             }
         }
 
         if (testData != null && !StringUtils.isEmpty(testData.info)) {
             System.out.println(testData.info);
         }
+        plan.printStats();
         if (errorTimes.size() == 0) {
             System.out.println("Accepted!");
         } else {
             for (String errorInfo : errorTimes) {
-                System.out.println(errorInfo);
+                System.out.println(errorInfo + "\n");
             }
         }
+        return errorTimes.isEmpty();
+    }
+
+    /**
+     * Replays a compiled group of a design problem under the time limit.
+     *
+     * @param plan            the compiled group
+     * @param watchdog        the watchdog of the run
+     * @param compareTimes    the number of the group
+     * @param errorTimes      receives the error information of the group
+     * @param timeLimitNanos  the time limit of the whole replay in nanoseconds
+     * @return false if the replay was abandoned, its worker may then still use the plan
+     */
+    private static boolean replayWatched(OperationPlan plan, CaseWatchdog watchdog, int compareTimes, List<String> errorTimes, long timeLimitNanos) {
+        CaseResult running = new CaseResult(compareTimes);
+        List<String> errors = new ArrayList<>();
+        CaseResult caseResult = watchdog.run(running, () -> {
+            running.invokeStartNanos = System.nanoTime();
+            running.invoking = true;
+            try {
+                plan.replay(compareTimes, errors);
+            } finally {
+                running.invoking = false;
+                running.wallNanos[CaseResult.INVOKE] = System.nanoTime() - running.invokeStartNanos;
+            }
+        }, timeLimitNanos);
+        if (!caseResult.abandoned) {
+            // 被放弃的回放可能还在写 errors
+            errorTimes.addAll(errors);
+        }
+        if (caseResult.verdict == Verdict.TIME_LIMIT_EXCEEDED) {
+            errorTimes.add("Run CompareTimes :  " + compareTimes + "\n" + Verdict.TIME_LIMIT_EXCEEDED.getDesc()
+                    + " , elapsed " + RunReport.ms(caseResult.wallNanos[CaseResult.INVOKE]) + " ms > " + RunReport.ms(timeLimitNanos) + " ms");
+        }
+        if (caseResult.abandoned) {
+            System.out.println("stop after compare " + compareTimes + " , the abandoned case may still be running\n");
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -474,182 +493,359 @@ public class IoUtil {
      * @return true valid ok
      */
     public static boolean startValid(Object obj, Method method, List<String> inputList, boolean isStrict, boolean newObj) {
+        return startValid(obj, method, inputList, isStrict, newObj, false);
+    }
+
+
+    /**
+     * Validates and tests the execution of a given method against a list of input data,
+     * optionally running the cases in parallel.
+     * In parallel mode every case is parsed, invoked and compared on a fork-join pool with its own
+     * solution instance, and the results are reported in input order once they are available.
+     * Parallel mode is also enabled by {@code @TestCaseGroup(parallel = true)} and is ignored for
+     * constructor class replays, whose operations depend on each other.
+     *
+     * @param obj       The object on which the method is invoked. Must not be null.
+     *                  If the method is static, this parameter is ignored.
+     * @param method    run method
+     * @param inputList input content
+     * @param isStrict  strict mode
+     * @param newObj    every test cast will new a object
+     * @param parallel  run independent cases in parallel
+     * @return true valid ok
+     */
+    public static boolean startValid(Object obj, Method method, List<String> inputList, boolean isStrict, boolean newObj, boolean parallel) {
+        return startValid(obj, method, CaseReader.of(inputList), isStrict, newObj, parallel);
+    }
+
+
+    /**
+     * Validates and tests the execution of a given method, reading the cases from a {@link CaseReader}.
+     * Each case is run as soon as its lines have been read, so only the current case is held in memory.
+     *
+     * @param obj      The object on which the method is invoked. Must not be null.
+     *                 If the method is static, this parameter is ignored.
+     * @param method   run method
+     * @param reader   input content
+     * @param isStrict strict mode
+     * @param newObj   every test cast will new a object
+     * @param parallel run independent cases in parallel
+     * @return true valid ok
+     * @see #startValid(Object, Method, List, boolean, boolean, boolean)
+     */
+    public static boolean startValid(Object obj, Method method, CaseReader reader, boolean isStrict, boolean newObj, boolean parallel) {
+        return startValid(obj, method, reader, isStrict, newObj, parallel, new RunReport());
+    }
+
+
+    /**
+     * Validates and tests the execution of a given method like
+     * {@link #startValid(Object, Method, CaseReader, boolean, boolean, boolean)}, collecting the result of every
+     * case that ran into the given report.
+     *
+     * @param obj      The object on which the method is invoked. Must not be null.
+     *                 If the method is static, this parameter is ignored.
+     * @param method   run method
+     * @param reader   input content
+     * @param isStrict strict mode
+     * @param newObj   every test cast will new a object
+     * @param parallel run independent cases in parallel
+     * @param report   receives the result of every case
+     * @return true valid ok
+     */
+    public static boolean startValid(Object obj, Method method, CaseReader reader, boolean isStrict, boolean newObj, boolean parallel, RunReport report) {
+        return startValid(obj, method, reader, isStrict, newObj, parallel, report, false, true);
+    }
+
+
+    /**
+     * Validates and tests the execution of a given method like
+     * {@link #startValid(Object, Method, CaseReader, boolean, boolean, boolean, RunReport)}, with the settings
+     * a runner of several solutions needs to choose per run instead of through global state.
+     *
+     * @param obj          The object on which the method is invoked. Must not be null.
+     *                     If the method is static, this parameter is ignored.
+     * @param method       run method
+     * @param reader       input content
+     * @param isStrict     strict mode
+     * @param newObj       every test cast will new a object
+     * @param parallel     run independent cases in parallel
+     * @param report       receives the result of every case
+     * @param useLedger    keep a {@link ResultLedger}: run the cases that failed last time first and skip the
+     *                     ones that passed with the same bytecode; also enabled by {@code @TestCaseGroup(ledger = true)}.
+     *                     Parallel runs keep the input order and only skip
+     * @param heapSampling sample the peak heap of every case and check {@code memoryLimitMb}; the heap is
+     *                     shared by the JVM, so only when no other solution runs at the same time
+     * @return true valid ok
+     */
+    public static boolean startValid(Object obj, Method method, CaseReader reader, boolean isStrict, boolean newObj, boolean parallel, RunReport report,
+                                     boolean useLedger, boolean heapSampling) {
         Objects.requireNonNull(obj, "obj is null");
         Class<?>[] parameterTypes = method.getParameterTypes();
         Class<?> srcClass = obj.getClass();
         Class<?> origin = ReflectUtils.loadOrigin(obj.getClass());
-        Object[] args = null;
-        String returnName = method.getReturnType().getSimpleName();
-        final String tempRetrunName = returnName;
-        int size = inputList.size();
         String read = null;
 
         TestData testData = newObj ? new TestData(method, origin, srcClass) : null;
 
         int[] testCaseInfo = testData == null || testData.testCaseGroup == null ? new int[]{1, 0x3f3f3f} : testData.testCaseGroup;
 
+        // 构造类对拍每次操作依赖上一次的状态 不能并行
+        boolean isParallel = newObj && (parallel || testData.parallel);
+
+        // 单个用例的时间限制
+        long timeLimitNanos = testData == null ? 0 : TimeUnit.MILLISECONDS.toNanos(testData.timeLimitMs);
 
-        int typeId = -2; // 如果返回值是空类型 而且需要比较的标志
+        // 单个用例的内存限制 并行时堆内存是共享的 无法采样
+        long memoryLimitBytes = testData == null || !heapSampling ? 0 : testData.memoryLimitMb * 1024 * 1024;
+
+        // 浮点数结果的误差范围
+        DoubleJudge judge = testData == null ? DoubleJudge.DEFAULT : testData.doubleJudge;
 
         boolean isStatic = Modifier.isStatic(method.getModifiers());
 
-        // boolean isConstrunctorClass = !origin.getSimpleName().equals(obj.getClass().getSimpleName());
+        // 如果返回值是空类型 需要比较的参数下标
+        int typeId = ReflectUtils.handlerVoidReturnType(parameterTypes);
 
         List<Integer> errorTimes = new ArrayList<>();
         int exceptionTime = -1;
         int compareTimes = 1;
         boolean isStartTest = false;
-        for (int idx = 0; idx < size; ) {
 
-            if (compareTimes > testCaseInfo[1]) {
-                break;
-            }
-
-            // 是否在测试范围内
-            isStartTest = testCaseInfo[0] <= compareTimes && compareTimes <= testCaseInfo[1];
-
-            if (isStartTest) {
-                if (newObj && !isStatic) {
-                    // 如果不是构造类型对拍，定义普通类型属性会影响下次对拍 因此重新初始化
-                    // 就是上次数据影响这次对拍
-                    // example: leetcode.everyday.Code_0049_39
-                    obj = ReflectUtils.initObjcect(srcClass, null);
-                    Objects.requireNonNull(obj, "obj is null");
-                }
+        // 已解析用例的二进制缓存 命中时不再读取文本
+        // 输入文件的哈希只计算一次 缓存和结果记录共用
+        InputKey inputKey = newObj && reader.getSource() != null ? new InputKey(reader.getSource(), method, reader.isLongContent()) : null;
+        CaseCache cache = inputKey != null ? CaseCache.open(reader.getSource(), method, inputKey) : null;
+        boolean isCacheHit = cache != null && cache.isHit();
+        // 输入格式有误时不写缓存 否则下次命中会丢失错误提示
+        boolean isMalformed = false;
+
+        // 只运行部分用例时 通过索引直接跳到范围内的第一个用例
+        if (newObj && !isCacheHit && testCaseInfo[0] > 1) {
+            CaseIndex index = CaseIndex.open(reader, parameterTypes.length);
+            if (index != null && index.seek(reader, testCaseInfo[0])) {
+                compareTimes = testCaseInfo[0];
             }
+        }
 
+        // 上次的结果记录 跳过已通过的用例 上次失败的用例先运行
+        boolean isLedger = inputKey != null && (useLedger || testData.ledger);
+        ResultLedger ledger = isLedger ? ResultLedger.open(reader.getSource(), srcClass, inputKey, testData.ledgerForce) : null;
+        int firstCase = compareTimes;
+        long firstPosition = reader.position();
+        // 第 0 轮只运行上次失败的用例 第 1 轮运行其余用例 并行时按输入顺序输出错误 不调整顺序
+        int pass = !isParallel && ledger != null && ledger.failedCount() > 0 && (isCacheHit || firstPosition >= 0) ? 0 : 1;
+        boolean isFailedFirst = pass == 0;
+        int skipped = 0;
+
+        ForkJoinPool pool = isParallel ? new ForkJoinPool(Runtime.getRuntime().availableProcessors()) : null;
+        List<ForkJoinTask<CaseResult>> tasks = isParallel ? new ArrayList<>() : null;
+        // 有时间限制时 所有用例复用同一组工作线程
+        CaseWatchdog watchdog = timeLimitNanos > 0 ? new CaseWatchdog() : null;
 
-            // 填充参数信息
-            boolean isFill = false; // 参数校验标志信息
+        try {
+            while (isCacheHit ? compareTimes <= cache.size() : reader.hasNext()) {
 
-            if (parameterTypes.length == 0) {
-                while (idx < size && ((read = inputList.get(idx)) == null)) {
-                    idx++;
+                // 失败的用例已经运行完 回到开头运行其余用例
+                if (pass == 0 && (compareTimes > ledger.lastFailed() || compareTimes > testCaseInfo[1])) {
+                    pass = 1;
+                    compareTimes = firstCase;
+                    reader.seek(firstPosition);
+                    continue;
                 }
-                if (VOID_OR_ARGS.equals(read) || Objects.requireNonNull(read).isEmpty()) {
-                    isFill = true;
-                    read = null;
-                    idx++;
-                } else {
-                    throw new RuntimeException("NO args fill, should null");
+
+                if (compareTimes > testCaseInfo[1]) {
+                    break;
                 }
-            } else {
-                args = new Object[parameterTypes.length];
-                for (int i = 0; i < parameterTypes.length && idx < size; i++, idx++) {
-                    // 允许答案和输入参数之间有间隙
-                    while (idx < size && ((read = inputList.get(idx)) == null || read.isEmpty())) {
-                        idx++;
-                    }
-                    if (idx == size) {
-                        break;
-                    }
-                    if (read == null || read.isEmpty()) {
-                        throw new RuntimeException("result not match place check your ans !");
+
+                // 是否在测试范围内
+                isStartTest = testCaseInfo[0] <= compareTimes && compareTimes <= testCaseInfo[1];
+                boolean isLedgerSkipped = false;
+                if (isStartTest && ledger != null) {
+                    isLedgerSkipped = pass == 1 && ledger.isSkipped(compareTimes);
+                    if (isLedgerSkipped) {
+                        skipped++;
                     }
-                    isFill = true;
-                    if (isStartTest) {
-                        args[i] = ReflectUtils.parseArg(origin, method.getName(), parameterTypes[i], read, i, parameterTypes.length);
+                    if (pass == 0) {
+                        isStartTest = ledger.isFailedBefore(compareTimes);
+                    } else {
+                        // 第 0 轮已经运行过上次失败的用例
+                        isStartTest = !isLedgerSkipped && !(isFailedFirst && ledger.isFailedBefore(compareTimes));
                     }
-                    read = null;
                 }
 
-            }
-
-
-            if (idx >= size) {
-                if (isFill) {
-                    System.out.println("place check result match");
-                    errorTimes.add(compareTimes);
-                }
-                break;
-            }
-
-            // 分析该方法执行参数信息
-            Object result = null;
-
-            try {
-                if (isStartTest) {
+                String[] argLines = isCacheHit ? null : new String[parameterTypes.length];
+                if (!isCacheHit) {
+                    // 填充参数信息
+                    boolean isFill = false; // 参数校验标志信息
                     if (parameterTypes.length == 0) {
-                        result = method.invoke(isStatic ? null : obj);
+                        read = reader.next();
+                        if (VOID_OR_ARGS.equals(read) || Objects.requireNonNull(read).isEmpty()) {
+                            isFill = true;
+                            read = null;
+                        } else {
+                            throw new RuntimeException("NO args fill, should null");
+                        }
                     } else {
-                        result = method.invoke(isStatic ? null : obj, args);
+                        for (int i = 0; i < parameterTypes.length; i++) {
+                            // 允许答案和输入参数之间有间隙
+                            if ((read = reader.nextNonBlank()) == null) {
+                                break;
+                            }
+                            isFill = true;
+                            argLines[i] = read;
+                        }
                     }
-                }
 
-                // 允许答案和输入参数之间有间隙
-                while (idx < inputList.size() && ((read = inputList.get(idx)) == null || read.isEmpty())) {
-                    idx++;
-                }
-                // 结果不匹配
-                if (read == null) {
-                    if ("string".equalsIgnoreCase(returnName)) {
+                    // 参数不完整或者已经没有结果行
+                    if ((parameterTypes.length != 0 && read == null) || !reader.hasNext()) {
+                        if (isFill) {
+                            System.out.println("place check result match");
+                            errorTimes.add(compareTimes);
+                            isMalformed = true;
+                        }
+                        break;
+                    }
+
+                    // 允许答案和输入参数之间有间隙
+                    read = reader.nextNonBlank();
+                    // 结果不匹配
+                    if (read == null) {
+                        if (!"string".equalsIgnoreCase(method.getReturnType().getSimpleName())) {
+                            System.out.println("place check result match");
+                            errorTimes.add(compareTimes);
+                            isMalformed = true;
+                            break;
+                        }
                         read = "";
-                    } else {
-                        throw new RuntimeException("result not match place check your ans !");
                     }
                 }
 
-                if (!isStartTest) {
-                    returnName = tempRetrunName; // origin return name
-                    idx++; // match ok
-                    compareTimes++; // 比较次数
-                    continue;
+                if (isLedgerSkipped && cache != null && !isCacheHit) {
+                    // 跳过的用例也写入缓存 否则缓存永远不完整
+                    recordCase(compareTimes, method, origin, parameterTypes, typeId, argLines, read, cache);
                 }
 
-                if ("void".equalsIgnoreCase(returnName) && result == null) {
-
-                    // 如果结果为null说明只是调用改方法 并且返回值为 void
-                    // 这次就不参与比较了
-                    if (VOID_OR_ARGS.equals(read)) {
-                        idx++; // match ok
-                        compareTimes++; // 比较次数
-                        continue;
-                    }
-
-                    //  没有返回值时候如何处理呢 ？
-                    if (args != null && args.length > 0) {
-                        // 先处理成不是基本数据类型 因为基本数据类型是值传递 无法比较
-                        if (typeId == -2) {
-                            typeId = ReflectUtils.handlerVoidReturnType(parameterTypes);
+                if (isStartTest) {
+                    if (isParallel) {
+                        final String expectLine = read;
+                        final int caseNo = compareTimes;
+                        tasks.add(pool.submit(() -> {
+                            // 每个用例使用独立的对象 互不影响
+                            Object target = isStatic ? null : ReflectUtils.initObjcect(srcClass, null);
+                            CaseResult caseResult = new CaseResult(caseNo);
+                            Runnable task = () -> runCase(caseResult, target, method, origin, parameterTypes, typeId, argLines, expectLine, cache, isStrict, judge, false, false);
+                            if (watchdog != null) {
+                                return watchdog.run(caseResult, task, timeLimitNanos);
+                            }
+                            task.run();
+                            return caseResult;
+                        }));
+                    } else {
+                        if (newObj && !isStatic) {
+                            // 如果不是构造类型对拍，定义普通类型属性会影响下次对拍 因此重新初始化
+                            // 就是上次数据影响这次对拍
+                            // example: leetcode.everyday.Code_0049_39
+                            obj = ReflectUtils.initObjcect(srcClass, null);
+                            Objects.requireNonNull(obj, "obj is null");
+                        }
+                        final CaseResult running = new CaseResult(compareTimes);
+                        final Object target = obj;
+                        final String expectLine = read;
+                        Runnable task = () -> runCase(running, target, method, origin, parameterTypes, typeId, argLines, expectLine, cache, isStrict, judge, true, heapSampling);
+                        CaseResult caseResult = running;
+                        if (watchdog != null) {
+                            caseResult = watchdog.run(running, task, timeLimitNanos);
+                        } else {
+                            task.run();
+                        }
+                        checkMemoryLimit(caseResult, memoryLimitBytes);
+                        report.add(caseResult);
+                        if (ledger != null) {
+                            ledger.record(compareTimes, caseResult.isAccepted());
+                        }
+                        if (caseResult.verdict == Verdict.RUNTIME_ERROR) {
+                            exceptionTime = compareTimes;
+                            break;
                         }
-                        if (typeId == -1) {
-                            throw new RuntimeException("unkonwn compare type");
+                        if (!caseResult.isAccepted()) {
+                            // 非构造类才输出错误信息
+                            if (newObj) {
+                                printCaseError(caseResult, method, timeLimitNanos, memoryLimitBytes);
+                            }
+                            errorTimes.add(compareTimes);
+                        }
+                        if (caseResult.abandoned) {
+                            // 超时的用例可能还在运行 会影响之后用例的耗时 也可能修改共享的对象
+                            System.out.println("stop after compare " + compareTimes + " , the abandoned case may still be running\n");
+                            break;
                         }
-                        returnName = parameterTypes[typeId].getSimpleName();
-                        result = args[typeId];
                     }
                 }
+                read = null;
+                compareTimes++; // 比较次数
+            }
 
-                Object expect = ReflectUtils.parseArg(origin, method.getName(), returnName, read, -1, -1);
-                if (expect != null && !TestUtils.valid(result, expect, returnName, isStrict, true)) {
-                    // 非构造类才输出错误信息
-                    if (newObj) {
-                        System.out.println("compare " + compareTimes + " is Error , Run Method Name : " + method.getName() + "\n"); // save error
+            if (isParallel) {
+                boolean isAbandoned = false;
+                // 按照输入顺序输出结果
+                for (ForkJoinTask<CaseResult> task : tasks) {
+                    CaseResult caseResult = task.join();
+                    report.add(caseResult);
+                    if (ledger != null) {
+                        ledger.record(caseResult.caseNo, caseResult.isAccepted());
+                    }
+                    if (caseResult.verdict == Verdict.RUNTIME_ERROR) {
+                        exceptionTime = caseResult.caseNo;
+                        break;
+                    }
+                    if (!caseResult.isAccepted()) {
+                        if (caseResult.verdict == Verdict.WRONG_ANSWER) {
+                            TestUtils.valid(caseResult.result, caseResult.expect, caseResult.returnName, isStrict, true, judge);
+                        }
+                        printCaseError(caseResult, method, timeLimitNanos, memoryLimitBytes);
+                        errorTimes.add(caseResult.caseNo);
+                    }
+                    if (caseResult.abandoned && !isAbandoned) {
+                        isAbandoned = true;
+                        System.out.println("compare " + caseResult.caseNo + " was abandoned and may still be running , timings of other cases are unreliable\n");
                     }
-                    errorTimes.add(compareTimes);
                 }
-                args = null;
-                read = null;
-            } catch (Exception ignore) {
-                exceptionTime = compareTimes;
-                break;
             }
-            returnName = tempRetrunName; // origin return name
-            idx++; // match ok
-            compareTimes++; // 比较次数
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            if (watchdog != null) {
+                watchdog.close();
+            }
         }
 
+        // 只有完整读取且没有异常时才写缓存
+        if (cache != null && !isCacheHit && !isMalformed && exceptionTime == -1 && !reader.hasNext()) {
+            cache.save(compareTimes - 1);
+        } else if (cache != null) {
+            cache.discard();
+        }
+        if (ledger != null) {
+            ledger.save();
+        }
 
         if (newObj && !StringUtils.isEmpty(testData.info)) {
             System.out.println(testData.info);
         }
 
+        if (newObj) {
+            report.print();
+        }
+
+        if (ledger != null && (skipped > 0 || ledger.failedCount() > 0)) {
+            System.out.println("ledger : " + ledger.failedCount() + (isFailedFirst ? " failed cases run first, " : " failed cases before, ") + skipped + " passed cases skipped");
+        }
+
         if (errorTimes.isEmpty() && exceptionTime == -1 && newObj) {
             System.out.println("Accepted!");
         } else {
-//            for (int error : errorTimes) {
-//                System.out.println("compare " + error + " is Error ,place check your program");
-//            }
             if (exceptionTime != -1) {
                 System.out.println("exception times :" + exceptionTime);
             }
@@ -658,6 +854,199 @@ public class IoUtil {
     }
 
 
+    /**
+     * Prints the error line of a case that was not accepted.
+     *
+     * @param caseResult       the failed case
+     * @param method           the method under test
+     * @param timeLimitNanos   the time limit of the invocation in nanoseconds, 0 if there is none
+     * @param memoryLimitBytes the memory limit of the invocation in bytes, 0 if there is none
+     */
+    private static void printCaseError(CaseResult caseResult, Method method, long timeLimitNanos, long memoryLimitBytes) {
+        if (caseResult.verdict == Verdict.TIME_LIMIT_EXCEEDED) {
+            System.out.println("compare " + caseResult.caseNo + " is " + Verdict.TIME_LIMIT_EXCEEDED.getDesc()
+                    + " , elapsed " + RunReport.ms(caseResult.wallNanos[CaseResult.INVOKE]) + " ms > " + RunReport.ms(timeLimitNanos)
+                    + " ms , Run Method Name : " + method.getName() + "\n");
+            return;
+        }
+        if (caseResult.verdict == Verdict.MEMORY_LIMIT_EXCEEDED) {
+            System.out.println("compare " + caseResult.caseNo + " is " + Verdict.MEMORY_LIMIT_EXCEEDED.getDesc()
+                    + " , peak heap " + RunReport.bytes(caseResult.peakHeapBytes) + " > " + RunReport.bytes(memoryLimitBytes)
+                    + " , Run Method Name : " + method.getName() + "\n");
+            return;
+        }
+        System.out.println("compare " + caseResult.caseNo + " is Error , Run Method Name : " + method.getName() + "\n"); // save error
+    }
+
+
+    /**
+     * Flags a case as {@link Verdict#MEMORY_LIMIT_EXCEEDED} when its sampled peak heap growth is
+     * above the memory limit. Cases that already failed with an exception or a timeout keep their verdict.
+     *
+     * @param caseResult       the case to check
+     * @param memoryLimitBytes the memory limit in bytes, 0 if there is none
+     */
+    private static void checkMemoryLimit(CaseResult caseResult, long memoryLimitBytes) {
+        if (memoryLimitBytes <= 0 || caseResult.peakHeapBytes <= memoryLimitBytes) {
+            return;
+        }
+        if (caseResult.verdict == Verdict.ACCEPTED || caseResult.verdict == Verdict.WRONG_ANSWER) {
+            caseResult.verdict = Verdict.MEMORY_LIMIT_EXCEEDED;
+        }
+    }
+
+
+    /**
+     * Runs a single test case: parses the arguments, invokes the method and compares the result.
+     * For void methods the first non-primitive argument is compared instead of the return value,
+     * unless the expected line is {@code null}, in which case the call is not compared at all.
+     * Argument parsing errors are propagated to the caller, while exceptions thrown by the solution
+     * or during comparison are recorded as {@link Verdict#RUNTIME_ERROR}.
+     *
+     * @param caseResult     the result to fill, its invocation markers are read by the time limit watchdog
+     * @param obj            the object on which the method is invoked, ignored for static methods
+     * @param method         the method under test
+     * @param origin         the top-level class of the solution, used to resolve generic types
+     * @param parameterTypes the parameter types of the method
+     * @param typeId         the index of the argument compared for void methods, or -1 if there is none
+     * @param argLines       the raw input line of every argument
+     * @param expectLine     the raw expected line
+     * @param cache          the parsed case cache; cases are taken from it on a hit and recorded into it
+     *                       on a miss, may be null
+     * @param isStrict       strict mode
+     * @param judge          the tolerance of floating point results
+     * @param isPrintInfo    whether a mismatch should print the diff information
+     * @param isMeasureHeap  whether the peak heap growth of the invocation should be sampled
+     * @return the outcome of the case
+     */
+    private static CaseResult runCase(CaseResult caseResult, Object obj, Method method, Class<?> origin, Class<?>[] parameterTypes, int typeId,
+                                      String[] argLines, String expectLine, CaseCache cache, boolean isStrict, DoubleJudge judge, boolean isPrintInfo, boolean isMeasureHeap) {
+        CaseProbe probe = new CaseProbe();
+        Object[] args = null;
+        CaseCache.Entry cached = null;
+        byte[] encodedArgs = null;
+        probe.begin();
+        if (cache != null && cache.isHit()) {
+            // 直接从缓存中解码 跳过文本解析
+            cached = cache.get(caseResult.caseNo - 1);
+            args = cached.args;
+        } else if (parameterTypes.length > 0) {
+            ParserPlan plan = ParserPlan.of(method, origin);
+            args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                args[i] = plan.parseArg(i, argLines[i]);
+            }
+        }
+        if (cache != null && cached == null) {
+            // 调用前记录参数 方法可能会修改参数
+            encodedArgs = cache.encodeArgs(args);
+        }
+        probe.end(caseResult, CaseResult.PARSE);
+        try {
+            long heapBaseline = isMeasureHeap ? CaseProbe.resetHeapPeak() : 0;
+            probe.begin();
+            caseResult.invokeStartNanos = System.nanoTime();
+            caseResult.invoking = true;
+            Object result;
+            try {
+                result = method.invoke(obj, args);
+            } finally {
+                caseResult.invoking = false;
+                probe.end(caseResult, CaseResult.INVOKE);
+                if (isMeasureHeap) {
+                    caseResult.peakHeapBytes = CaseProbe.peakHeapGrowth(heapBaseline);
+                }
+            }
+            // 已超时被放弃 不再写缓存和输出
+            if (caseResult.abandoned) {
+                return caseResult;
+            }
+            String returnName = method.getReturnType().getSimpleName();
+            if ("void".equalsIgnoreCase(returnName) && result == null) {
+
+                // 如果结果为null说明只是调用改方法 并且返回值为 void
+                // 这次就不参与比较了
+                if (cached != null ? cached.isVoidMarker : VOID_OR_ARGS.equals(expectLine)) {
+                    if (encodedArgs != null) {
+                        cache.record(caseResult.caseNo, encodedArgs, null, true);
+                    }
+                    caseResult.verdict = Verdict.ACCEPTED;
+                    return caseResult;
+                }
+
+                //  没有返回值时候如何处理呢 ？
+                if (args != null && args.length > 0) {
+                    // 先处理成不是基本数据类型 因为基本数据类型是值传递 无法比较
+                    if (typeId == -1) {
+                        throw new RuntimeException("unkonwn compare type");
+                    }
+                    returnName = parameterTypes[typeId].getSimpleName();
+                    result = args[typeId];
+                }
+            }
+            probe.begin();
+            Object expect = cached != null ? cached.expect : ParserPlan.of(method, origin).parseExpect(returnName, expectLine);
+            if (encodedArgs != null) {
+                cache.record(caseResult.caseNo, encodedArgs, expect, false);
+            }
+            probe.end(caseResult, CaseResult.PARSE);
+            caseResult.result = result;
+            caseResult.expect = expect;
+            caseResult.returnName = returnName;
+            probe.begin();
+            boolean ok;
+            try {
+                ok = expect == null || TestUtils.valid(result, expect, returnName, isStrict, isPrintInfo, judge);
+            } finally {
+                probe.end(caseResult, CaseResult.COMPARE);
+            }
+            caseResult.verdict = ok ? Verdict.ACCEPTED : Verdict.WRONG_ANSWER;
+        } catch (Exception e) {
+            caseResult.verdict = Verdict.RUNTIME_ERROR;
+            caseResult.error = e;
+        }
+        return caseResult;
+    }
+
+    /**
+     * Parses a case that is not run, e.g. one skipped by the {@link ResultLedger}, and records it into the
+     * case cache, so the cache is still complete at the end of the run.
+     *
+     * @param caseNo         the one based case number
+     * @param method         the method under test
+     * @param origin         the top level class of the solution
+     * @param parameterTypes the parameter types of the method
+     * @param typeId         the compared parameter of a void method, -1 if there is none
+     * @param argLines       the argument lines
+     * @param expectLine     the expected line
+     * @param cache          the cache that records the case
+     */
+    private static void recordCase(int caseNo, Method method, Class<?> origin, Class<?>[] parameterTypes, int typeId,
+                                   String[] argLines, String expectLine, CaseCache cache) {
+        try {
+            ParserPlan plan = ParserPlan.of(method, origin);
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                args[i] = plan.parseArg(i, argLines[i]);
+            }
+            byte[] encodedArgs = cache.encodeArgs(args);
+            String returnName = method.getReturnType().getSimpleName();
+            if ("void".equalsIgnoreCase(returnName)) {
+                if (VOID_OR_ARGS.equals(expectLine)) {
+                    cache.record(caseNo, encodedArgs, null, true);
+                    return;
+                }
+                if (args.length > 0 && typeId != -1) {
+                    returnName = parameterTypes[typeId].getSimpleName();
+                }
+            }
+            cache.record(caseNo, encodedArgs, plan.parseExpect(returnName, expectLine), false);
+        } catch (RuntimeException ignore) {
+            // 解析失败时不记录 缓存不会写入
+        }
+    }
+
+
     /**
      * Searches for a method with the specified name within the given class.
      * If the provided method name matches certain predefined values (e.g., "main" or DEFAULT_METHOD_NAME),
@@ -786,6 +1175,53 @@ public class IoUtil {
     }
 
 
+    /**
+     * Opens a streaming {@link CaseReader} over a test input file located next to the given class.
+     *
+     * @param c               the Class object used to determine the base path for the file
+     * @param filename        the name of the file to be read
+     * @param openLongContent a flag indicating whether the file contains #content# long content
+     * @return a reader over the lines of the file, or null if the file does not exist or can not be opened
+     * @see #openCaseReader(String, String, boolean)
+     */
+    public static CaseReader openCaseReader(Class<?> c, String filename, boolean openLongContent) {
+        return openCaseReader(buildAbsolutePath(ReflectUtils.loadOrigin(c)), filename, openLongContent);
+    }
+
+
+    /**
+     * Opens a streaming {@link CaseReader} over a test input file.
+     * Unlike {@link #readFile(String, String, boolean)} the lines are read lazily while the cases run,
+     * so memory stays constant no matter how large the file is.
+     * Long content files are memory-mapped and their #content# segments are streamed the same way.
+     *
+     * @param path            the directory path where the file is located
+     * @param fileName        the name of the file to be read
+     * @param openLongContent a flag indicating whether the file contains #content# long content
+     * @return a reader over the lines of the file, or null if the file does not exist or can not be opened
+     */
+    public static CaseReader openCaseReader(String path, String fileName, boolean openLongContent) {
+        File file = new File(path + fileName);
+        if (!file.exists()) {
+            System.out.println(fileName + " not found!");
+            return null;
+        }
+        try {
+            if (openLongContent) {
+                CaseReader reader = CaseReader.openSegments(file);
+                if (!reader.hasNext()) {
+                    System.out.println("find error place use #content# package your content ");
+                }
+                return reader;
+            }
+            return CaseReader.open(file);
+        } catch (IOException e) {
+            System.err.println("parse failed " + e.getMessage());
+            return null;
+        }
+    }
+
+
     /**
      * Constructs the absolute path for a given class by appending its package path to the base absolute path.
      * The resulting path ends with the system's file separator.
@@ -898,8 +1334,9 @@ public class IoUtil {
 
     /**
      * Parses a given file to extract information enclosed within '#' symbols.
-     * The method reads the content of the file, searches for patterns matching
-     * the format #content#, and returns a list of all such matches.
+     * The file is memory-mapped and scanned once for segments of the format #content#;
+     * only the segment contents are decoded, and all of them are returned as a list.
+     * Use {@link CaseReader#openSegments(File)} to stream the segments instead.
      *
      * @param file the file to be parsed. If the file is null or does not exist,
      *             the method will print an error message and return null.
@@ -913,32 +1350,15 @@ public class IoUtil {
             return null;
         }
         List<String> ans = new ArrayList<>();
-        BufferedInputStream bis = null;
-        try {
-            byte[] buff = new byte[1024 * 1024];
-            StringBuilder sb = new StringBuilder();
-            bis = new BufferedInputStream(Files.newInputStream(file.toPath()));
-            while ((bis.read(buff)) != -1) {
-                sb.append(new String(buff));
-            }
-
-            String input = sb.toString();
-
-            Pattern pattern = Pattern.compile("#([^#]+)#", Pattern.DOTALL);
-            Matcher matcher = pattern.matcher(input);
-            boolean find = false;
-            while (matcher.find()) {
-                // System.out.println(times + " @@@@=>" + matcher.group(1));
-                ans.add(matcher.group(1));
-                find = true;
+        try (CaseReader reader = CaseReader.openSegments(file)) {
+            while (reader.hasNext()) {
+                ans.add(reader.next());
             }
-            if (!find) {
-                System.out.println("find error place use #content# package your content ");
-            }
-        } catch (IOException ignore) {
-
-        } finally {
-            close(bis);
+        } catch (IOException e) {
+            System.err.println("parse failed " + e.getMessage());
+        }
+        if (ans.isEmpty()) {
+            System.out.println("find error place use #content# package your content ");
         }
         return ans;
     }
@@ -0,0 +1,287 @@
+package code_generation.utils;
+
+/**
+ * A zero-copy lexer for bracketed literal input such as {@code [[1,2],["a","b"],null]}.
+ *
+ * <p>The lexer runs over any {@link CharSequence} (a {@link String}, a {@link java.nio.CharBuffer},
+ * a {@link StringBuilder}) and reports each token as a type plus the offsets of its first and last
+ * character, so no substring is created unless a caller asks for the text. The parsers in
+ * {@link ReflectUtils} walk the token stream once and only materialize the values they return.</p>
+ *
+ * <p>Token types:</p>
+ * <ul>
+ *     <li>{@link #OPEN} / {@link #CLOSE}: the bracket pair, {@code []} or {@code {}} as chosen by the first character</li>
+ *     <li>{@link #COMMA}: the element separator</li>
+ *     <li>{@link #STRING}: a {@code "..."} or {@code '...'} literal; brackets and commas inside it are not structural.
+ *     The offsets include the quotes</li>
+ *     <li>{@link #VALUE}: any other run of characters, such as a number, {@code null} or a bare word</li>
+ *     <li>{@link #END}: the end of the input</li>
+ * </ul>
+ * Whitespace between tokens is skipped.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class LiteralLexer {
+
+    public static final int END = 0;
+
+    public static final int OPEN = 1;
+
+    public static final int CLOSE = 2;
+
+    public static final int COMMA = 3;
+
+    public static final int VALUE = 4;
+
+    public static final int STRING = 5;
+
+    /**
+     * The input being scanned.
+     */
+    private final CharSequence input;
+
+    /**
+     * The structural bracket pair, 0 if the input has none.
+     */
+    private final char open, close;
+
+    /**
+     * Scan position.
+     */
+    private int pos;
+
+    /**
+     * The current token.
+     */
+    private int type = END, start, end;
+
+    /**
+     * Creates a lexer whose bracket pair is taken from the first non-blank character, the same way as
+     * {@link ReflectUtils#getFlag(String)}: {@code {}} if it is {@code '{'}, otherwise {@code []}.
+     *
+     * @param input the input to scan
+     */
+    public LiteralLexer(CharSequence input) {
+        this(input, firstNonBlank(input) == '{' ? '{' : '[', firstNonBlank(input) == '{' ? '}' : ']');
+    }
+
+    /**
+     * Creates a lexer with an explicit bracket pair.
+     *
+     * @param input the input to scan
+     * @param open  the opening bracket
+     * @param close the closing bracket
+     */
+    public LiteralLexer(CharSequence input, char open, char close) {
+        this.input = input;
+        this.open = open;
+        this.close = close;
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the type of the new current token
+     */
+    public int next() {
+        int n = input.length();
+        while (pos < n && isBlank(input.charAt(pos))) {
+            pos++;
+        }
+        start = pos;
+        if (pos >= n) {
+            end = pos;
+            return type = END;
+        }
+        char c = input.charAt(pos);
+        if (c == open) {
+            end = ++pos;
+            return type = OPEN;
+        }
+        if (c == close) {
+            end = ++pos;
+            return type = CLOSE;
+        }
+        if (c == ',') {
+            end = ++pos;
+            return type = COMMA;
+        }
+        if (c == '"' || c == '\'') {
+            int i = pos + 1;
+            while (i < n && input.charAt(i) != c) {
+                if (input.charAt(i) == '\\') {
+                    i++;
+                }
+                i++;
+            }
+            // 没有闭合的引号按普通值处理
+            if (i < n) {
+                pos = end = i + 1;
+                return type = STRING;
+            }
+        }
+        int i = pos + 1;
+        while (i < n) {
+            char x = input.charAt(i);
+            if (x == open || x == close || x == ',' || isBlank(x)) {
+                break;
+            }
+            i++;
+        }
+        pos = end = i;
+        return type = VALUE;
+    }
+
+    /**
+     * Skips the rest of the group whose {@link #OPEN} token was just read, leaving the matching
+     * {@link #CLOSE} (or {@link #END}) as the current token.
+     */
+    public void skipGroup() {
+        int depth = 1;
+        while (depth > 0) {
+            int t = next();
+            if (t == END) {
+                return;
+            }
+            if (t == OPEN) {
+                depth++;
+            } else if (t == CLOSE) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Returns the type of the current token.
+     *
+     * @return the token type
+     */
+    public int type() {
+        return type;
+    }
+
+    /**
+     * Returns the offset of the first character of the current token.
+     *
+     * @return the start offset, inclusive
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Returns the offset after the last character of the current token.
+     *
+     * @return the end offset, exclusive
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Returns the scanned input.
+     *
+     * @return the input
+     */
+    public CharSequence input() {
+        return input;
+    }
+
+    /**
+     * Returns whether the current token is the bare word {@code null}.
+     *
+     * @return true for a {@code null} token
+     */
+    public boolean isNull() {
+        return type == VALUE && end - start == 4 && input.charAt(start) == 'n' && input.charAt(start + 1) == 'u'
+                && input.charAt(start + 2) == 'l' && input.charAt(start + 3) == 'l';
+    }
+
+    /**
+     * Copies the text of the current token.
+     *
+     * @return the token text
+     */
+    public String text() {
+        return input.subSequence(start, end).toString();
+    }
+
+    /**
+     * Parses a range of a character sequence as an int, accepting exactly what
+     * {@link Integer#parseInt(String)} accepts, without creating a substring.
+     *
+     * @param s     the characters
+     * @param start the start offset, inclusive
+     * @param end   the end offset, exclusive
+     * @return the parsed value
+     * @throws NumberFormatException if the range is not a valid int
+     */
+    public static int parseInt(CharSequence s, int start, int end) {
+        long v = parseLong(s, start, end);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw error(s, start, end);
+        }
+        return (int) v;
+    }
+
+    /**
+     * Parses a range of a character sequence as a long, accepting exactly what
+     * {@link Long#parseLong(String)} accepts, without creating a substring.
+     *
+     * @param s     the characters
+     * @param start the start offset, inclusive
+     * @param end   the end offset, exclusive
+     * @return the parsed value
+     * @throws NumberFormatException if the range is not a valid long
+     */
+    public static long parseLong(CharSequence s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw error(s, start, end);
+        }
+        // 按负数累加 可以表示 Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long v = 0;
+        for (; i < end; i++) {
+            int d = Character.digit(s.charAt(i), 10);
+            if (d < 0 || v < multmin || v * 10 < limit + d) {
+                throw error(s, start, end);
+            }
+            v = v * 10 - d;
+        }
+        return negative ? v : -v;
+    }
+
+    /**
+     * Creates the error reported for a range that can not be parsed, worded like the error of
+     * {@link Integer#parseInt(String)}.
+     *
+     * @param s     the characters
+     * @param start the start offset, inclusive
+     * @param end   the end offset, exclusive
+     * @return the error
+     */
+    public static NumberFormatException error(CharSequence s, int start, int end) {
+        return new NumberFormatException("For input string: \"" + s.subSequence(start, end) + "\"");
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f' || c == '\0';
+    }
+
+    private static char firstNonBlank(CharSequence input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c != ' ' && c != '\0') {
+                return c;
+            }
+        }
+        return 0;
+    }
+}
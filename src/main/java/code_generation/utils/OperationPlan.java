@@ -0,0 +1,363 @@
+package code_generation.utils;
+
+import code_generation.proxy.RunReport;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Replays the operations of a design ("constructor class") problem from a precompiled plan.
+ *
+ * <p>A group of three input lines (operation names, arguments, expected values) is compiled once into
+ * parallel operation arrays: the resolved method index, the parsed arguments, the parsed expected value
+ * and the kind of check. Methods and constructors are resolved by name and number of arguments, so
+ * overloads no longer overwrite each other. The replay is then a plain loop over the arrays that calls
+ * every operation through its resolved {@link Method} and compares the result, without building
+ * an intermediate list of strings per operation.</p>
+ *
+ * <p>The plan keeps latency counters (calls, total and max nanoseconds) per operation type over all
+ * replayed groups, printed by {@link #printStats()}.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class OperationPlan {
+
+    /**
+     * 构造函数
+     */
+    private static final byte CONSTRUCT = 0;
+
+    /**
+     * 只调用不比较 例如返回值为 void 并且期望值为 null
+     */
+    private static final byte CALL = 1;
+
+    /**
+     * 比较返回值
+     */
+    private static final byte COMPARE = 2;
+
+    /**
+     * 返回值为 void 比较被修改的参数
+     */
+    private static final byte COMPARE_ARG = 3;
+
+    /**
+     * 输入格式有误 回放时报告
+     */
+    private static final byte MALFORMED = 4;
+
+    private final Class<?> src;
+
+    private final Class<?> origin;
+
+    private final String className;
+
+    private final boolean isStrict;
+
+    private final DoubleJudge judge;
+
+    /**
+     * 所有可调用的方法 构造函数排在普通方法之后
+     */
+    private final Method[] methods;
+
+    private final Constructor<?>[] constructors;
+
+    /**
+     * 名称 + 参数个数 -> 下标
+     */
+    private final Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * 名称 -> 下标 有重载时为 -1
+     */
+    private final Map<String, Integer> byName = new HashMap<>();
+
+    /**
+     * 每种操作的调用次数 总耗时 最大耗时 下标同 methods 之后是构造函数
+     */
+    private final long[] calls, totalNanos, maxNanos;
+
+    // 当前分组编译后的操作
+    private int size;
+    private int[] target = new int[16];
+    private byte[] kind = new byte[16];
+    private int[] position = new int[16];
+    private Object[][] args = new Object[16][];
+    private Object[] expect = new Object[16];
+    private String[] compareName = new String[16];
+    private int[] compareArg = new int[16];
+    private String[] rawArgs = new String[16];
+
+    /**
+     * Resolves the methods and constructors of a class.
+     *
+     * @param src      the class under test
+     * @param isStrict strict mode
+     * @param judge    the tolerance of floating point results
+     */
+    public OperationPlan(Class<?> src, boolean isStrict, DoubleJudge judge) {
+        this.src = src;
+        this.origin = ReflectUtils.loadOrigin(src);
+        this.className = src.getSimpleName();
+        this.isStrict = isStrict;
+        this.judge = judge == null ? DoubleJudge.DEFAULT : judge;
+        this.methods = src.getDeclaredMethods();
+        this.constructors = src.getDeclaredConstructors();
+        for (int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            if (method.isSynthetic()) {
+                continue;
+            }
+            method.setAccessible(true);
+            register(method.getName(), method.getParameterCount(), i);
+        }
+        for (int i = 0; i < constructors.length; i++) {
+            constructors[i].setAccessible(true);
+            register(className, constructors[i].getParameterCount(), methods.length + i);
+        }
+        int n = methods.length + constructors.length;
+        this.calls = new long[n];
+        this.totalNanos = new long[n];
+        this.maxNanos = new long[n];
+    }
+
+    private void register(String name, int arity, int i) {
+        index.put(name + '#' + arity, i);
+        byName.put(name, byName.containsKey(name) ? -1 : i);
+    }
+
+    /**
+     * Resolves an operation by name and number of arguments. An operation without arguments is written
+     * as {@code []}, which can not be told apart from a single empty string argument, so a name with one
+     * declaration is resolved by the name alone.
+     */
+    private int resolve(String name, int arity) {
+        Integer i = index.get(name + '#' + arity);
+        if (i == null && arity == 0) {
+            i = index.get(name + '#' + 1);
+        }
+        if (i == null) {
+            i = byName.get(name);
+        }
+        if (i == null || i == -1) {
+            throw new RuntimeException("not find method " + name + " with " + arity + " args, place check your format !");
+        }
+        return i;
+    }
+
+    /**
+     * Compiles a group of three lines into the operation arrays, replacing the previous group.
+     *
+     * @param nameLine   the operation names
+     * @param argLine    the arguments of every operation
+     * @param expectLine the expected value of every operation
+     */
+    public void compile(String nameLine, String argLine, String expectLine) {
+        String[] names = ReflectUtils.oneStringArray(nameLine);
+        String[] argList = ReflectUtils.parseConstrunctorClassString(argLine);
+        String[] expectList = ReflectUtils.parseConstrunctorClassString(expectLine);
+        if (argList.length != expectList.length || argList.length != names.length) {
+            throw new RuntimeException("result not mathch palce check");
+        }
+        size = 0;
+        for (int p = 0; p < names.length; p++) {
+            String name = StringUtils.ingoreString(names[p]);
+            if (StringUtils.isEmpty(name)) {
+                continue;
+            }
+            ensureCapacity(size + 1);
+            String[] tokens = ReflectUtils.parseConstrunctorClassString(argList[p]);
+            int arity = tokens.length == 1 && tokens[0].isEmpty() ? 0 : tokens.length;
+            int k = size++;
+            int i = resolve(name, arity);
+            target[k] = i;
+            position[k] = p;
+            rawArgs[k] = argList[p];
+            expect[k] = null;
+            compareName[k] = null;
+            if (i >= methods.length) {
+                kind[k] = CONSTRUCT;
+                args[k] = parseConstructorArgs(constructors[i - methods.length], tokens);
+                continue;
+            }
+            Method method = methods[i];
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (tokens.length < parameterTypes.length) {
+                kind[k] = MALFORMED;
+                continue;
+            }
+            ParserPlan plan = ParserPlan.of(method, origin);
+            Object[] values = new Object[parameterTypes.length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = plan.parseArg(j, tokens[j]);
+            }
+            args[k] = values;
+            compileExpect(k, method, plan, expectList[p]);
+        }
+    }
+
+    private Object[] parseConstructorArgs(Constructor<?> constructor, String[] tokens) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        Object[] values = new Object[parameterTypes.length];
+        for (int j = 0, t = 0; j < values.length && t < tokens.length; j++, t++) {
+            // 允许参数之间有空白
+            while (t < tokens.length && tokens[t].isEmpty()) {
+                t++;
+            }
+            if (t == tokens.length) {
+                break;
+            }
+            values[j] = ReflectUtils.parseArg(src, constructor.getName(), parameterTypes[j], tokens[t], j, values.length);
+        }
+        return values;
+    }
+
+    private void compileExpect(int k, Method method, ParserPlan plan, String raw) {
+        // 与 ReflectUtils.handlerConstructorMethodOutput 保持一致
+        List<String> holder = new ArrayList<>(1);
+        ReflectUtils.handlerConstructorMethodOutput(raw, holder, method);
+        String line = holder.get(0);
+        String returnName = method.getReturnType().getSimpleName();
+        if ("void".equalsIgnoreCase(returnName)) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (IoUtil.VOID_OR_ARGS.equals(line) || parameterTypes.length == 0) {
+                kind[k] = CALL;
+                return;
+            }
+            // 基本数据类型是值传递 比较可以被修改的参数
+            int typeId = ReflectUtils.handlerVoidReturnType(parameterTypes);
+            if (typeId == -1) {
+                throw new RuntimeException("unkonwn compare type");
+            }
+            kind[k] = COMPARE_ARG;
+            compareName[k] = parameterTypes[typeId].getSimpleName();
+            compareArg[k] = typeId;
+            expect[k] = plan.parseExpect(compareName[k], line);
+            return;
+        }
+        if (line.isEmpty() && !"string".equalsIgnoreCase(returnName)) {
+            kind[k] = MALFORMED;
+            return;
+        }
+        expect[k] = plan.parseExpect(returnName, line);
+        // 期望值为 null 时不参与比较
+        kind[k] = expect[k] == null ? CALL : COMPARE;
+        compareName[k] = returnName;
+    }
+
+    /**
+     * Replays the compiled group on a fresh object.
+     *
+     * @param compareTimes the number of the group, used in the error information
+     * @param errors       receives one error information per failed operation
+     */
+    public void replay(int compareTimes, List<String> errors) {
+        Object obj = null;
+        for (int k = 0; k < size; k++) {
+            int i = target[k];
+            if (kind[k] == CONSTRUCT) {
+                long start = System.nanoTime();
+                try {
+                    obj = constructors[i - methods.length].newInstance(args[k]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    obj = null;
+                }
+                count(i, System.nanoTime() - start);
+                continue;
+            }
+            Objects.requireNonNull(obj, "obj is null");
+            if (kind[k] == MALFORMED) {
+                System.out.println("place check result match");
+                errors.add(errorInfo(compareTimes, k, null));
+                continue;
+            }
+            Object[] values = args[k];
+            Object result;
+            long start = System.nanoTime();
+            try {
+                result = methods[i].invoke(obj, values);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can not access method " + methods[i], e);
+            } catch (InvocationTargetException e) {
+                count(i, System.nanoTime() - start);
+                errors.add(errorInfo(compareTimes, k, e.getCause()));
+                continue;
+            }
+            count(i, System.nanoTime() - start);
+            if (kind[k] == CALL) {
+                continue;
+            }
+            if (kind[k] == COMPARE_ARG) {
+                result = values[compareArg[k]];
+            }
+            if (!TestUtils.valid(result, expect[k], compareName[k], isStrict, true, judge)) {
+                errors.add(errorInfo(compareTimes, k, null));
+            }
+        }
+    }
+
+    private void count(int i, long nanos) {
+        calls[i]++;
+        totalNanos[i] += nanos;
+        maxNanos[i] = Math.max(maxNanos[i], nanos);
+    }
+
+    private String errorInfo(int compareTimes, int k, Throwable error) {
+        int i = target[k];
+        String info = "Run CompareTimes :  " + compareTimes + "\nCall Method      :  " + methods[i].getName() + "\nArgs Index       :  " + position[k] + "\nArgs             :  " + rawArgs[k];
+        return error == null ? info : info + "\nException        :  " + error;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= target.length) {
+            return;
+        }
+        int cap = Math.max(n, target.length << 1);
+        target = Arrays.copyOf(target, cap);
+        kind = Arrays.copyOf(kind, cap);
+        position = Arrays.copyOf(position, cap);
+        args = Arrays.copyOf(args, cap);
+        expect = Arrays.copyOf(expect, cap);
+        compareName = Arrays.copyOf(compareName, cap);
+        compareArg = Arrays.copyOf(compareArg, cap);
+        rawArgs = Arrays.copyOf(rawArgs, cap);
+    }
+
+    /**
+     * Prints the latency of every operation type that was called at least once.
+     */
+    public void printStats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("======================================操作统计=======================\n");
+        sb.append(String.format("%-32s %10s %12s %12s %12s%n", "operation", "calls", "total(ms)", "avg(us)", "max(ms)"));
+        boolean any = false;
+        for (int i = 0; i < calls.length; i++) {
+            if (calls[i] == 0) {
+                continue;
+            }
+            any = true;
+            Class<?>[] parameterTypes = i < methods.length ? methods[i].getParameterTypes() : constructors[i - methods.length].getParameterTypes();
+            StringBuilder signature = new StringBuilder(i < methods.length ? methods[i].getName() : className).append('(');
+            for (int j = 0; j < parameterTypes.length; j++) {
+                signature.append(j == 0 ? "" : ", ").append(parameterTypes[j].getSimpleName());
+            }
+            signature.append(')');
+            sb.append(String.format("%-32s %10d %12s %12s %12s%n", signature, calls[i], RunReport.ms(totalNanos[i]),
+                    String.format("%.3f", totalNanos[i] / 1e3 / calls[i]), RunReport.ms(maxNanos[i])));
+        }
+        sb.append("=====================================================================");
+        if (any) {
+            System.out.println(sb);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package code_generation.utils;
+
+import code_generation.function.ArgParser;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The compiled parsers of one method: one {@link ArgParser} per parameter and one for the return type.
+ *
+ * <p>{@link ReflectUtils#parseArg(Class, String, String, String, int, int)} dispatches on the type name
+ * for every value it parses, and for {@code List} types scans the source file again to find the generic
+ * type. A plan does that work once per {@link Method}, so {@link IoUtil#startValid} only calls
+ * {@code plan.parseArg(i, line)} for each case.</p>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class ParserPlan {
+
+    /**
+     * Plans already compiled, keyed by method.
+     */
+    private static final Map<Method, ParserPlan> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Parser of every parameter, in declaration order.
+     */
+    private final ArgParser[] params;
+
+    /**
+     * Parser of the return type.
+     */
+    private final ArgParser result;
+
+    /**
+     * Simple name of the return type.
+     */
+    private final String resultName;
+
+    /**
+     * Parser of the compared parameter of a void method, null if there is none.
+     */
+    private final ArgParser voidResult;
+
+    /**
+     * Simple name of the compared parameter of a void method.
+     */
+    private final String voidResultName;
+
+    private ParserPlan(Method method, Class<?> origin) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        String name = method.getName();
+        this.params = new ArgParser[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            params[i] = ReflectUtils.compileParser(origin, name, parameterTypes[i].getSimpleName(), i, parameterTypes.length);
+        }
+        this.resultName = method.getReturnType().getSimpleName();
+        this.result = ReflectUtils.compileParser(origin, name, resultName, -1, -1);
+        int typeId = ReflectUtils.handlerVoidReturnType(parameterTypes);
+        this.voidResultName = typeId == -1 ? null : parameterTypes[typeId].getSimpleName();
+        this.voidResult = typeId == -1 ? null : ReflectUtils.compileParser(origin, name, voidResultName, -1, -1);
+    }
+
+    /**
+     * Returns the plan of a method, compiling it on first use.
+     *
+     * @param method the method under test
+     * @param origin the class whose source declares the method, used to resolve {@code List} types
+     * @return the compiled plan
+     */
+    public static ParserPlan of(Method method, Class<?> origin) {
+        ParserPlan plan = CACHE.get(method);
+        if (plan != null) {
+            return plan;
+        }
+        return CACHE.computeIfAbsent(method, m -> new ParserPlan(m, origin));
+    }
+
+    /**
+     * Drops the plans of the methods declared by classes of a class loader, so a reloaded class does
+     * not keep the previous loader reachable.
+     *
+     * @param loader the discarded class loader
+     */
+    static void evict(ClassLoader loader) {
+        CACHE.keySet().removeIf(m -> m.getDeclaringClass().getClassLoader() == loader);
+    }
+
+    /**
+     * Parses the input of a parameter.
+     *
+     * @param i     the parameter index
+     * @param input the raw input line
+     * @return the parsed argument
+     */
+    public Object parseArg(int i, String input) {
+        return params[i].parse(input);
+    }
+
+    /**
+     * Parses the expected line. Void methods are compared by one of their parameters, in which case
+     * {@code returnName} is the simple name of that parameter type.
+     *
+     * @param returnName the simple name of the compared type
+     * @param input      the raw expected line
+     * @return the parsed expected value
+     */
+    public Object parseExpect(String returnName, String input) {
+        if (voidResult != null && !returnName.equals(resultName) && returnName.equals(voidResultName)) {
+            return voidResult.parse(input);
+        }
+        return result.parse(input);
+    }
+}
@@ -5,13 +5,14 @@ import code_generation.annotation.TestCaseGroup;
 import code_generation.bean.ListNode;
 import code_generation.bean.TreeNode;
 import code_generation.enums.Type;
+import code_generation.function.ArgParser;
 
 import java.io.File;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 
 /**
@@ -239,100 +240,154 @@ public class ReflectUtils {
      * @return the parsed object corresponding to the specified type, or null if parsing fails
      */
     public static Object parseArg(Class<?> src, String methodName, String type, String input, int idx, int argsSize) {
-        if (input == null || "".equals(input) || input.length() == 0) {
-            System.out.println("read content is null");
-            return null;
-        }
+        return compileParser(src, methodName, type, idx, argsSize).parse(input);
+    }
+
+    /**
+     * Compiles a parser for the given type once, so it can be applied to many inputs without
+     * dispatching on the type name again. The returned parser behaves exactly like
+     * {@link #parseArg(Class, String, String, String, int, int)}: empty input and malformed numbers
+     * print a hint and yield null. For {@code List} types the generic type is resolved on the first
+     * call and then reused.
+     *
+     * @param src        the class associated with the method invocation context
+     * @param methodName the name of the method being invoked
+     * @param type       the target type to which the input should be parsed (e.g., "int", "String[]", "TreeNode")
+     * @param idx        the index of the argument in the method signature, -1 for the return type
+     * @param argsSize   the total number of arguments in the method signature
+     * @return the parser for the type
+     */
+    public static ArgParser compileParser(Class<?> src, String methodName, String type, int idx, int argsSize) {
         if ("void".equals(type)) {
-            System.out.println("void type not support place check type !");
-            return null;
-        }
-        input = toString(input);
-        try {
-            switch (type) {
-                case "int":
-                case "Integer":
-                    return Integer.parseInt(input);
-                case "long":
-                case "Long":
-                    return Long.parseLong(input);
-                case "boolean":
-                case "Boolean":
-                    return input.contains("t");
-                case "boolean[]":
-                case "Boolean[]":
-                    return oneBooleanArray(input);
-                case "boolean[][]":
-                case "Boolean[][]":
-                    return doubleBooleanArray(input);
-                case "double":
-                    return parseDouble(input);
-                case "double[]":
-                    return oneDoubleArray(input);
-                case "double[][]":
-                    return doubleDoubleArray(input);
-                case "long[]":
-                case "Long[]":
-                    return oneLongArray(input);
-                case "long[][]":
-                case "Long[][]":
-                    return doubleLongArray(input);
-                case "float":
-                    return Float.parseFloat(input);
-                case "int[]":
-                case "Integer[]":
-                    return oneIntArray(input);
-                case "int[][]":
-                case "Integer[][]":
-                    return doubleIntArray(input);
-                case "int[][][]":
-                case "Integer[][][]":
-                    return threeIntArray(input);
-                case "char":
-                case "Character":
-                    return input.toCharArray()[0];
-                case "char[]":
-                case "Character[]":
-                    return oneCharArray(input);
-                case "char[][]":
-                case "Character[][]":
-                    return doubleCharArray(input);
-                case "char[][][]":
-                case "Character[][][]":
-                    return threeCharArray(input);
-                case "string":
-                case "String":
-                    return toString(input);
-                case "string[]":
-                case "String[]":
-                    return oneStringArray(input);
-                case "string[][]":
-                case "String[][]":
-                    return doubleStringArray(input);
-                case "string[][][]":
-                case "String[][][]":
-                    return threeStringArray(input);
-                case "TreeNode":
-                    return TreeNode.widthBuildTreeNode(oneStringArray(input));
-                case "TreeNode[]":
-                    return createListTreeNodeArray(input);
-                case "ListNode":
-                    return ListNode.createListNode(oneIntArray(input));
-                case "ListNode[]":
-                    return createListNodeArray(input);
-                case "List":
-                case "ArrayList":
-                    return toList(src, methodName, type, input, idx, argsSize);
-                default:
-                    System.out.println(type + " not implement ,place implement!");
+            return input -> {
+                if (input == null || input.length() == 0) {
+                    System.out.println("read content is null");
                     return null;
+                }
+                System.out.println("void type not support place check type !");
+                return null;
+            };
+        }
+        ArgParser parser = compileTypeParser(src, methodName, type, idx, argsSize);
+        return input -> {
+            if (input == null || input.length() == 0) {
+                System.out.println("read content is null");
+                return null;
             }
-        } catch (NumberFormatException e) {
-            // e.printStackTrace();
-            errorInfo(type);
-            return null;
-        }
+            try {
+                return parser.parse(toString(input));
+            } catch (NumberFormatException e) {
+                // e.printStackTrace();
+                System.out.println(e.getMessage());
+                errorInfo(type);
+                return null;
+            }
+        };
+    }
 
+    /**
+     * Selects the parser of a type name; the returned parser expects input already cleaned by {@link #toString(String)}.
+     *
+     * @param src        the class associated with the method invocation context
+     * @param methodName the name of the method being invoked
+     * @param type       the target type name
+     * @param idx        the index of the argument in the method signature, -1 for the return type
+     * @param argsSize   the total number of arguments in the method signature
+     * @return the parser for the type
+     */
+    private static ArgParser compileTypeParser(Class<?> src, String methodName, String type, int idx, int argsSize) {
+        switch (type) {
+            case "int":
+            case "Integer":
+                return Integer::parseInt;
+            case "long":
+            case "Long":
+                return Long::parseLong;
+            case "boolean":
+            case "Boolean":
+                return input -> input.contains("t");
+            case "boolean[]":
+            case "Boolean[]":
+                return ReflectUtils::oneBooleanArray;
+            case "boolean[][]":
+            case "Boolean[][]":
+                return ReflectUtils::doubleBooleanArray;
+            case "double":
+                return Double::parseDouble;
+            case "double[]":
+                return ReflectUtils::oneDoubleArray;
+            case "double[][]":
+                return ReflectUtils::doubleDoubleArray;
+            case "long[]":
+            case "Long[]":
+                return ReflectUtils::oneLongArray;
+            case "long[][]":
+            case "Long[][]":
+                return ReflectUtils::doubleLongArray;
+            case "float":
+                return Float::parseFloat;
+            case "int[]":
+            case "Integer[]":
+                return ReflectUtils::oneIntArray;
+            case "int[][]":
+            case "Integer[][]":
+                return ReflectUtils::doubleIntArray;
+            case "int[][][]":
+            case "Integer[][][]":
+                return ReflectUtils::threeIntArray;
+            case "char":
+            case "Character":
+                return input -> input.toCharArray()[0];
+            case "char[]":
+            case "Character[]":
+                return ReflectUtils::oneCharArray;
+            case "char[][]":
+            case "Character[][]":
+                return ReflectUtils::doubleCharArray;
+            case "char[][][]":
+            case "Character[][][]":
+                return ReflectUtils::threeCharArray;
+            case "string":
+            case "String":
+                return ReflectUtils::toString;
+            case "string[]":
+            case "String[]":
+                return ReflectUtils::oneStringArray;
+            case "string[][]":
+            case "String[][]":
+                return ReflectUtils::doubleStringArray;
+            case "string[][][]":
+            case "String[][][]":
+                return ReflectUtils::threeStringArray;
+            case "TreeNode":
+                return ReflectUtils::parseTreeNode;
+            case "TreeNode[]":
+                return ReflectUtils::createListTreeNodeArray;
+            case "ListNode":
+                return input -> ListNode.createListNode(oneIntArray(input));
+            case "ListNode[]":
+                return ReflectUtils::createListNodeArray;
+            case "List":
+            case "ArrayList":
+                return new ArgParser() {
+                    // 第一次解析时才查找泛型类型 之后复用
+                    private volatile ArgParser listParser;
+
+                    @Override
+                    public Object parse(String input) {
+                        ArgParser p = listParser;
+                        if (p == null) {
+                            p = listParser = compileListParser(src, methodName, type, idx, argsSize);
+                        }
+                        return p.parse(input);
+                    }
+                };
+            default:
+                return input -> {
+                    System.out.println(type + " not implement ,place implement!");
+                    return null;
+                };
+        }
     }
 
     /**
@@ -401,6 +456,10 @@ public class ReflectUtils {
      * @return a two-dimensional array of primitive longs derived from the parsed input
      */
     private static long[][] doubleLongArray(String input) {
+        long[][] fast = ArrayScanner.scanLongMatrix(input);
+        if (fast != null) {
+            return fast;
+        }
         List<List<Long>> longList = parseDoubleLongList(input);
         long[][] longs = new long[longList.size()][];
         for (int i = 0; i < longList.size(); i++) {
@@ -461,6 +520,10 @@ public class ReflectUtils {
      * @return an Object which is actually a primitive long array containing the parsed long values
      */
     private static Object oneLongArray(String input) {
+        long[] fast = ArrayScanner.scanLongArray(input);
+        if (fast != null) {
+            return fast;
+        }
         List<Long> ls = parseListLong(input);
         long[] res = new long[ls.size()];
         for (int i = 0; i < ls.size(); i++) {
@@ -506,45 +569,64 @@ public class ReflectUtils {
      *         if the type is not explicitly supported
      */
     public static Object toList(Class<?> t, String methodName, String type, String input, int idx, int argsSize) {
-        String listType = IoUtil.findListReturnTypeMethod(t, methodName, type, idx, argsSize);
+        return compileListParser(t, methodName, type, idx, argsSize).parse(input);
+    }
+
+    /**
+     * Resolves the generic type of a {@code List} argument or return type and selects its parser.
+     *
+     * @param t          the class declaring the method
+     * @param methodName the name of the method
+     * @param type       the raw type name, {@code List} or {@code ArrayList}
+     * @param idx        the index of the argument in the method signature, -1 for the return type
+     * @param argsSize   the total number of arguments in the method signature
+     * @return the parser for the resolved list type
+     */
+    private static ArgParser compileListParser(Class<?> t, String methodName, String type, int idx, int argsSize) {
+        Executable executable = GenericTypeResolver.find(t, methodName, type, idx, argsSize);
+        String listType = executable == null ? null : GenericTypeResolver.typeName(executable, idx, type);
+        if (listType == null) {
+            // 反射找不到时才扫描源码
+            listType = IoUtil.findListReturnTypeMethod(t, methodName, type, idx, argsSize);
+        }
         String originType = listType;
         if (listType.contains("ArrayList")) {
             listType = listType.replace("ArrayList", "List");
         }
         switch (listType) {
             case "List<TreeNode>":
-                return parseListTreeNode(input); // 4.2日 新增
+                return ReflectUtils::parseListTreeNode; // 4.2日 新增
             case "List<String>":
-                return parseListString(input);
+                return ReflectUtils::parseListString;
             case "List<List<String>>":
-                return parseDoubleString(input);
+                return ReflectUtils::parseDoubleString;
             case "List<List<List<String>>>":
-                return parseThreeString(input);
+                return ReflectUtils::parseThreeString;
             case "List<Integer>":
-                return parseListInteger(input);
+                return ReflectUtils::parseListInteger;
             case "List<Long>":
-                return parseListLong(input);
+                return ReflectUtils::parseListLong;
             case "List<Boolean>":
-                return parseListBoolean(input);
+                return ReflectUtils::parseListBoolean;
             case "List<List<Boolean>>":
-                return parseDoubleBoolean(input);
+                return ReflectUtils::parseDoubleBoolean;
             case "List<Double>":
-                return parseDoubleList(input);
+                return ReflectUtils::parseDoubleList;
             case "List<List<Double>>":
-                return parseDoubleDoubleList(input);
+                return ReflectUtils::parseDoubleDoubleList;
             case "List<List<Integer>>":
-                return parseListDoubleInteger(input);
+                return ReflectUtils::parseListDoubleInteger;
             case "List<List<List<Integer>>>":
-                return parseListThreeInteger(input);
+                return ReflectUtils::parseListThreeInteger;
             case "List<Character>":
-                return parseListChar(input);
+                return ReflectUtils::parseListChar;
             case "List<List<Character>>":
-                return parseListDoubleChar(input);
+                return ReflectUtils::parseListDoubleChar;
             case "List<List<List<Character>>>":
-                return parseThreeCharArray(input);
+                return ReflectUtils::parseThreeCharArray;
             default:
                 System.err.println("NOT implement " + originType + ",place implement this ,default convert string list");
-                return parseListString(input);
+                return ReflectUtils::parseListString;
         }
     }
 
@@ -636,11 +718,9 @@ public class ReflectUtils {
     private static List<List<Boolean>> parseDoubleBoolean(String input) {
         List<List<String>> doubles = parseDoubleString(input);
         List<List<Boolean>> ans = new ArrayList<>();
-        int m = doubles.size(), n = doubles.get(0).size();
-        for (int i = 0; i < m; i++) {
+        for (List<String> row : doubles) {
             ArrayList<Boolean> temp = new ArrayList<>();
-            for (int j = 0; j < n; j++) {
-                String s = doubles.get(i).get(j);
+            for (String s : row) {
                 if (s.contains("t")) {
                     temp.add(true);
                 } else {
@@ -702,7 +782,7 @@ public class ReflectUtils {
         ArrayList<Double> doubles = new ArrayList<>();
         for (String s : list) {
             try {
-                doubles.add(parseDouble(s));
+                doubles.add(Double.parseDouble(s));
             } catch (NumberFormatException e) {
                 // ignore
             }
@@ -714,7 +794,7 @@ public class ReflectUtils {
      * Parses a string input into a list of lists containing Double values.
      * The input is expected to be structured in a way that can be processed by the parseDoubleString method,
      * which converts it into a list of lists of strings. Each string is then converted to a Double using
-     * the parseDouble method.
+     * {@link Double#parseDouble(String)}.
      *
      * @param input the string input to be parsed into a list of lists of Double values
      * @return a list of lists of Double values parsed from the input string
@@ -725,7 +805,7 @@ public class ReflectUtils {
         for (List<String> one : list) {
             List<Double> temp = new ArrayList<>();
             for (String s : one) {
-                temp.add(parseDouble(s));
+                temp.add(Double.parseDouble(s));
             }
             doubles.add(temp);
         }
@@ -743,6 +823,10 @@ public class ReflectUtils {
         if ("[]".equals(input) || "{}".equals(input)) {
             return new int[]{};
         }
+        int[] fast = ArrayScanner.scanIntArray(input);
+        if (fast != null) {
+            return fast;
+        }
         List<Integer> ls = parseListInteger(input);
         if (ls.isEmpty()) {
             return new int[]{};
@@ -769,6 +853,10 @@ public class ReflectUtils {
         if ("[]".equals(input) || "[[]]".equals(input) || "{}".equals(input) || "{{}}".equals(input)) {
             return new int[][]{};
         }
+        int[][] fast = ArrayScanner.scanIntMatrix(input);
+        if (fast != null) {
+            return fast;
+        }
         List<List<Integer>> ls = parseListDoubleInteger(input);
         if (ls == null || ls.size() == 0) {
             return new int[][]{};
@@ -816,33 +904,37 @@ public class ReflectUtils {
      * @return a character array containing all characters from the input string
      */
     public static char[] oneCharArray(String input) {
-        List<Character> ls = parseListChar(input);
-        char[] cs = new char[ls.size()];
-        for (int i = 0; i < ls.size(); i++) {
-            cs[i] = ls.get(i);
+        ArrayScanner.IntBuffer bounds = listBounds(input);
+        char[] cs = new char[bounds.size >> 1];
+        for (int i = 0; i < cs.length; i++) {
+            cs[i] = firstChar(input, bounds.data[i << 1], bounds.data[i << 1 | 1]);
         }
         return cs;
     }
 
     /**
      * Converts a given string into a two-dimensional character array.
-     * The input string is parsed into a list of character lists, which is then
-     * transformed into a 2D character array where each row corresponds to a list
-     * of characters.
+     * The rows are read with a {@link LiteralLexer} and the first character of every element
+     * is copied straight from the input, without building intermediate lists or strings.
      *
      * @param input the string to be parsed and converted into a 2D character array
      * @return a two-dimensional character array derived from the parsed input string
      */
     public static char[][] doubleCharArray(String input) {
-        List<List<Character>> ls = parseListDoubleChar(input);
-        int row = ls.size();
-        char[][] cs = new char[row][];
-        for (int i = 0; i < row; i++) {
-            List<Character> cc = ls.get(i);
-            cs[i] = new char[cc.size()];
-            for (int j = 0; j < cc.size(); j++) {
-                cs[i][j] = cc.get(j);
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer rowEnds = new ArrayScanner.IntBuffer(16);
+        LiteralLexer lexer = new LiteralLexer(input);
+        if (nextOpen(lexer)) {
+            readRows(lexer, bounds, rowEnds);
+        }
+        char[][] cs = new char[rowEnds.size][];
+        for (int r = 0, from = 0; r < rowEnds.size; r++) {
+            int to = rowEnds.data[r];
+            cs[r] = new char[to - from];
+            for (int i = from; i < to; i++) {
+                cs[r][i - from] = firstChar(input, bounds.data[i << 1], bounds.data[i << 1 | 1]);
             }
+            from = to;
         }
         return cs;
     }
@@ -881,20 +973,20 @@ public class ReflectUtils {
     /**
      * Parses a string representation of a list into a list of integers.
      * The input string is expected to be formatted as a list, such as "[1, 2, 3]" or "{4, 5, 6}".
-     * Non-integer values within the list are ignored.
+     * Non-integer values within the list are ignored. The values are parsed in place from the input.
      *
      * @param input the string representation of a list to be parsed
      * @return a list of integers extracted from the input string
      */
     public static List<Integer> parseListInteger(String input) {
-        List<String> strings = parseListString(input);
         ArrayList<Integer> ans = new ArrayList<>();
         if ("[]".equals(input) || "{}".equals(input)) {
             return ans;
         }
-        for (String s : strings) {
+        ArrayScanner.IntBuffer bounds = listBounds(input);
+        for (int i = 0; i < bounds.size; i += 2) {
             try {
-                ans.add(Integer.parseInt(s));
+                ans.add(LiteralLexer.parseInt(input, bounds.data[i], bounds.data[i + 1]));
             } catch (NumberFormatException e) {
                 // ignore
             }
@@ -916,49 +1008,59 @@ public class ReflectUtils {
         if ("[]".equals(input) || "[[]]".equals(input) || "{}".equals(input) || "{{}}".equals(input)) {
             return new ArrayList<>();
         }
-        List<List<String>> lists = parseDoubleString(input);
-        for (List<String> row : lists) {
-            if (row == null) {
-                continue;
-            }
-            List<Integer> temp = new ArrayList<>();
-            for (String s : row) {
-                if (s == null) continue;
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer rowEnds = new ArrayScanner.IntBuffer(16);
+        LiteralLexer lexer = new LiteralLexer(input);
+        if (nextOpen(lexer)) {
+            readRows(lexer, bounds, rowEnds);
+        }
+        for (int r = 0, from = 0; r < rowEnds.size; r++) {
+            int to = rowEnds.data[r];
+            List<Integer> temp = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
                 try {
-                    temp.add(Integer.parseInt(s));
+                    temp.add(LiteralLexer.parseInt(input, bounds.data[i << 1], bounds.data[i << 1 | 1]));
                 } catch (NumberFormatException e) {
                     // ignore
                 }
             }
             ls.add(temp);
+            from = to;
         }
         return ls;
     }
 
     /**
      * Parses a string input into a three-dimensional list of integers.
-     * The method processes the input by first parsing it into a three-dimensional list of strings,
-     * then converting each string to an integer where possible. Strings that cannot be parsed into
-     * integers are ignored.
+     * The elements are located with a {@link LiteralLexer} in one pass and parsed in place where possible.
+     * Elements that cannot be parsed into integers are ignored.
      *
      * @param input the input string to be parsed into a three-dimensional list of integers
      * @return a three-dimensional list of integers derived from the input string
      */
     public static List<List<List<Integer>>> parseListThreeInteger(String input) {
         List<List<List<Integer>>> ans = new ArrayList<>();
-        List<List<List<String>>> lists = parseThreeString(input);
-        for (List<List<String>> list : lists) {
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer rowEnds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer blockEnds = new ArrayScanner.IntBuffer(16);
+        readBlocks(input, bounds, rowEnds, blockEnds);
+        char stChar = input.isEmpty() ? 0 : input.charAt(0);
+        for (int b = 0, row = 0; b < blockEnds.size; b++) {
             List<List<Integer>> d = new ArrayList<>();
-            if (list == null) continue;
-            for (List<String> strings : list) {
-                if (strings == null) continue;
-                List<Integer> t = new ArrayList<>();
-                for (String string : strings) {
-                    if (string == null) continue;
+            for (; row < blockEnds.data[b]; row++) {
+                int from = row == 0 ? 0 : rowEnds.data[row - 1], to = rowEnds.data[row];
+                List<Integer> t = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    int st = bounds.data[i << 1], ed = bounds.data[i << 1 | 1];
                     try {
-                        t.add(Integer.parseInt(string));
+                        t.add(LiteralLexer.parseInt(input, st, ed));
                     } catch (NumberFormatException e) {
-                        // ignore
+                        try {
+                            // 去掉引号等字符之后再试一次
+                            t.add(Integer.parseInt(stripIgnore(input, st, ed, stChar)));
+                        } catch (NumberFormatException ignore) {
+                            // ignore
+                        }
                     }
                 }
                 d.add(t);
@@ -979,29 +1081,27 @@ public class ReflectUtils {
      */
     public static List<Character> parseListChar(String input) {
         List<Character> ls = new ArrayList<>();
-        List<String> strings = parseListString(input);
-        for (String s : strings) {
-            ls.add(s.charAt(0));
+        ArrayScanner.IntBuffer bounds = listBounds(input);
+        for (int i = 0; i < bounds.size; i += 2) {
+            ls.add(firstChar(input, bounds.data[i], bounds.data[i + 1]));
         }
         return ls;
     }
 
     /**
      * Parses a given string input into a list of lists of characters.
-     * The method processes the input by first parsing it into a list of lists of strings,
-     * then converts each string into its corresponding character.
+     * The method boxes the rows produced by {@link #doubleCharArray(String)}.
      *
      * @param input the input string to be parsed
      * @return a list of lists of characters derived from the input string
      */
     public static List<List<Character>> parseListDoubleChar(String input) {
-        List<List<String>> lists = parseDoubleString(input);
-        List<List<Character>> ls = new ArrayList<>();
-        List<Character> temp = null;
-        for (List<String> row : lists) {
-            temp = new ArrayList<>();
-            for (String s : row) {
-                temp.add(s.charAt(0));
+        char[][] cs = doubleCharArray(input);
+        List<List<Character>> ls = new ArrayList<>(cs.length);
+        for (char[] row : cs) {
+            List<Character> temp = new ArrayList<>(row.length);
+            for (char c : row) {
+                temp.add(c);
             }
             ls.add(temp);
         }
@@ -1010,9 +1110,8 @@ public class ReflectUtils {
 
     /**
      * Parses a given string input into a three-dimensional list of characters.
-     * The method processes the input by first converting it into a three-dimensional list of strings
-     * using an external method `parseThreeString`. Each non-null string is then reduced to its first character,
-     * which is added to the resulting structure.
+     * The elements are located with a {@link LiteralLexer} in one pass, the same way as `parseThreeString`,
+     * and each element is reduced to its first character that is not ignored.
      *
      * @param input the input string to be parsed into a three-dimensional list of characters
      * @return a three-dimensional list of characters derived from the input string,
@@ -1020,16 +1119,22 @@ public class ReflectUtils {
      */
     public static List<List<List<Character>>> parseThreeCharArray(String input) {
         List<List<List<Character>>> ans = new ArrayList<>();
-        List<List<List<String>>> lists = parseThreeString(input);
-        for (List<List<String>> list : lists) {
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer rowEnds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer blockEnds = new ArrayScanner.IntBuffer(16);
+        readBlocks(input, bounds, rowEnds, blockEnds);
+        char stChar = input.isEmpty() ? 0 : input.charAt(0);
+        for (int b = 0, row = 0; b < blockEnds.size; b++) {
             List<List<Character>> d = new ArrayList<>();
-            if (list == null) continue;
-            for (List<String> strings : list) {
-                if (strings == null) continue;
-                List<Character> t = new ArrayList<>();
-                for (String string : strings) {
-                    if (string == null) continue;
-                    t.add(string.charAt(0));
+            for (; row < blockEnds.data[b]; row++) {
+                int from = row == 0 ? 0 : rowEnds.data[row - 1], to = rowEnds.data[row];
+                List<Character> t = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    int st = bounds.data[i << 1], ed = bounds.data[i << 1 | 1];
+                    while (st < ed && StringUtils.isIgnore(input.charAt(st), stChar)) {
+                        st++;
+                    }
+                    t.add(firstChar(input, st, ed));
                 }
                 d.add(t);
             }
@@ -1101,6 +1206,7 @@ public class ReflectUtils {
     /**
      * Parses a given input string based on specific flag characters and returns a list of substrings.
      * The method identifies substrings enclosed by start and end flags, optionally separated by an interrupt flag.
+     * The input is scanned once by a {@link LiteralLexer}; only the returned elements are copied.
      *
      * @param input the input string to be parsed; may contain special flag characters or plain text
      * @return a list of strings extracted from the input based on the parsing logic;
@@ -1108,33 +1214,9 @@ public class ReflectUtils {
      */
     public static List<String> parseListString(String input) {
         List<String> ls = new ArrayList<>();
-        char[] flag = getFlag(input);
-        char startFlag = flag[0];
-        char endFlag = flag[1];
-        char interruptFlag = flag[2];
-        if (!input.contains(String.valueOf(startFlag)) && !input.contains(String.valueOf(endFlag))) {
-            ls.add(input);
-            return ls;
-        }
-        String nullStr = new String(new char[]{startFlag, endFlag});
-        if (nullStr.equals(input)) return ls;
-        StringBuilder sb = null;
-        char[] cs = input.toCharArray();
-        for (char c : cs) {
-            if (c == startFlag) {
-                sb = new StringBuilder();
-                continue;
-            }
-            if (sb == null) break;
-            if (c == endFlag) {
-                ls.add(sb.toString());
-                break;
-            } else if (c == interruptFlag) {
-                ls.add(sb.toString());
-                sb = new StringBuilder();
-            } else {
-                sb.append(c);
-            }
+        ArrayScanner.IntBuffer bounds = listBounds(input);
+        for (int i = 0; i < bounds.size; i += 2) {
+            ls.add(input.substring(bounds.data[i], bounds.data[i + 1]));
         }
         return ls;
     }
@@ -1144,6 +1226,7 @@ public class ReflectUtils {
      * Parses a given input string based on specific flag characters and returns a nested list structure.
      * The method identifies segments of the string enclosed by start and end flags,
      * and further splits these segments by an interrupt flag.
+     * The input is scanned once by a {@link LiteralLexer}; only the returned elements are copied.
      *
      * @param input the input string to be parsed; must contain valid flag characters for processing
      * @return a list of lists of strings, where each inner list represents a segment enclosed
@@ -1151,45 +1234,22 @@ public class ReflectUtils {
      *         separated by the interrupt flag
      */
     public static List<List<String>> parseDoubleString(String input) {
-        StringBuilder sb = null;
-        char[] flag = getFlag(input);
-        char startFlag = flag[0];
-        char endFlag = flag[1];
-        char interruptFlag = flag[2];
         List<List<String>> ls = new ArrayList<>();
-        List<String> temp = null;
-        Stack<Character> sk = new Stack<>();
-        char[] cs = input.toCharArray();
-        for (int i = 0; i < cs.length; i++) {
-            char c = cs[i];
-            if (c == startFlag) {
-                sk.push(c);
-                if (sk.size() == 2) temp = new ArrayList<>();
-            } else if (c == endFlag) {
-                if (!sk.isEmpty()) {
-                    sk.pop();
-                }
-                if (sk != null && !sk.isEmpty() && temp != null) {
-                    if (sb != null) {
-                        temp.add(sb.toString());
-                    }
-                    ls.add(temp);
-                }
-                sb = null;
-                temp = null;
-            } else if (c == interruptFlag) {
-                if (temp != null && sb != null) {
-                    temp.add(sb.toString());
-                    sb = new StringBuilder();
-                }
-            } else {
-                if (sb == null) {
-                    sb = new StringBuilder();
-                }
-                sb.append(c);
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer rowEnds = new ArrayScanner.IntBuffer(16);
+        LiteralLexer lexer = new LiteralLexer(input);
+        if (nextOpen(lexer)) {
+            readRows(lexer, bounds, rowEnds);
+        }
+        for (int r = 0, from = 0; r < rowEnds.size; r++) {
+            int to = rowEnds.data[r];
+            List<String> row = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                row.add(input.substring(bounds.data[i << 1], bounds.data[i << 1 | 1]));
             }
+            ls.add(row);
+            from = to;
         }
-
         return ls;
     }
 
@@ -1197,8 +1257,8 @@ public class ReflectUtils {
     /**
      * Parses a given input string into a nested list structure based on specific delimiters.
      * The method identifies three levels of nesting using start, end, and interrupt flags
-     * derived from the input string. It processes the input character by character,
-     * grouping substrings into lists at each level of nesting.
+     * derived from the input string. It scans the input once with a {@link LiteralLexer},
+     * grouping the elements into lists at each level of nesting.
      *
      * @param input the input string to be parsed; must not be null or empty
      * @return a nested list of strings, where each level of nesting corresponds to the
@@ -1206,52 +1266,252 @@ public class ReflectUtils {
      */
     public static List<List<List<String>>> parseThreeString(String input) {
         List<List<List<String>>> ans = new ArrayList<>();
-        char[] charArray = input.toCharArray();
-        StringBuilder sb = new StringBuilder();
-        boolean f1 = false, f2 = false, f3 = false;
-        List<List<String>> d = new ArrayList<>();
-        List<String> t = new ArrayList<>();
-        Stack<Character> sk = new Stack<>();
-        char[] flag = getFlag(input);
-        char startFlag = flag[0];
-        char endFlag = flag[1];
-        char interruptFlag = flag[2];
-        char stChar = input.charAt(0);
-        for (char c : charArray) {
-            if (StringUtils.isIgnore(c, stChar)) continue;
-            if (c == startFlag) {
-                sk.push(c);
-                if (sk.size() == 2) {
-                    d = new ArrayList<>();
-                } else if (sk.size() == 3) {
-                    t = new ArrayList<>();
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer rowEnds = new ArrayScanner.IntBuffer(16);
+        ArrayScanner.IntBuffer blockEnds = new ArrayScanner.IntBuffer(16);
+        readBlocks(input, bounds, rowEnds, blockEnds);
+        char stChar = input.isEmpty() ? 0 : input.charAt(0);
+        for (int b = 0, row = 0; b < blockEnds.size; b++) {
+            List<List<String>> d = new ArrayList<>();
+            for (; row < blockEnds.data[b]; row++) {
+                int from = row == 0 ? 0 : rowEnds.data[row - 1], to = rowEnds.data[row];
+                List<String> t = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    t.add(stripIgnore(input, bounds.data[i << 1], bounds.data[i << 1 | 1], stChar));
                 }
-            } else if (c == endFlag) {
-                if (!sk.isEmpty()) {
-                    sk.pop();
+                d.add(t);
+            }
+            ans.add(d);
+        }
+        return ans;
+    }
+
+
+    // ======================== 基于 LiteralLexer 的公共解析 ========================
+
+    /**
+     * Builds a binary tree from its level-order input, e.g. {@code [3,9,20,null,null,15,7]}.
+     * The values are parsed straight from the element bounds into an {@code int[]} and a null mask,
+     * which {@link TreeNode#widthBuildTreeNode(int[], boolean[], int)} turns into nodes without a queue.
+     * Elements that are not plain numbers or null markers fall back to
+     * {@link TreeNode#widthBuildTreeNode(String[])}.
+     *
+     * @param input the level-order input
+     * @return the root node, or null for an empty tree
+     */
+    public static TreeNode parseTreeNode(String input) {
+        ArrayScanner.IntBuffer bounds = listBounds(input);
+        int n = bounds.size >> 1;
+        int[] values = new int[n];
+        boolean[] nulls = new boolean[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                int st = bounds.data[i << 1], ed = bounds.data[i << 1 | 1];
+                int len = ed - st;
+                // 空元素 null 和 # 都表示空节点
+                nulls[i] = len == 0 || len == 1 && input.charAt(st) == '#' || len == 4 && input.startsWith("null", st);
+                if (!nulls[i]) {
+                    values[i] = LiteralLexer.parseInt(input, st, ed);
                 }
-                if (sk.size() == 1) {
-                    ans.add(d);
-                } else if (sk.size() == 2) {
-                    if (sb != null) {
-                        t.add(sb.toString());
-                        sb = null;
-                    }
-                    d.add(t);
+            }
+        } catch (NumberFormatException e) {
+            return TreeNode.widthBuildTreeNode(oneStringArray(input));
+        }
+        return TreeNode.widthBuildTreeNode(values, nulls, n);
+    }
+
+    /**
+     * Returns the element bounds of a one dimensional input as {@code start, end} pairs, following
+     * the rules of {@link #parseListString(String)}: input without any bracket is a single element,
+     * and an empty pair of brackets has no elements.
+     *
+     * @param input the input
+     * @return the element bounds
+     */
+    private static ArrayScanner.IntBuffer listBounds(String input) {
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
+        char[] flag = getFlag(input);
+        if (input.indexOf(flag[0]) == -1 && input.indexOf(flag[1]) == -1) {
+            bounds.add(0);
+            bounds.add(input.length());
+            return bounds;
+        }
+        LiteralLexer lexer = new LiteralLexer(input);
+        if (nextOpen(lexer)) {
+            readGroup(lexer, bounds, true);
+        }
+        return bounds;
+    }
+
+    /**
+     * Advances the lexer past the first opening bracket; anything before it is ignored.
+     *
+     * @param lexer the lexer
+     * @return false if the input has no opening bracket
+     */
+    private static boolean nextOpen(LiteralLexer lexer) {
+        int t;
+        while ((t = lexer.next()) != LiteralLexer.END) {
+            if (t == LiteralLexer.OPEN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the elements of the group whose opening bracket was just read, up to its closing bracket.
+     * Every element is appended to {@code bounds} as a {@code start, end} pair; a nested group stays
+     * inside its element as raw text, and an empty element between two commas has {@code start == end}.
+     *
+     * @param lexer  the lexer, positioned after an opening bracket
+     * @param bounds receives the element bounds
+     * @return the index of the first element that is a nested group, -1 if there is none
+     */
+    private static int readGroup(LiteralLexer lexer, ArrayScanner.IntBuffer bounds) {
+        return readGroup(lexer, bounds, false);
+    }
+
+    /**
+     * Reads the elements of a group.
+     *
+     * @param lexer  the lexer, positioned after an opening bracket
+     * @param bounds receives the element bounds
+     * @param isFlat whether an opening bracket at the start of an element is skipped instead of kept as
+     *               a nested element, so a nested input given to a one dimensional parser yields its
+     *               first inner group, as the one dimensional parsers always did
+     * @return the index of the first element that is a nested group, -1 if there is none
+     */
+    private static int readGroup(LiteralLexer lexer, ArrayScanner.IntBuffer bounds, boolean isFlat) {
+        int st = -1, ed = -1, nested = -1;
+        boolean isSplit = false;
+        while (true) {
+            int t = lexer.next();
+            if (t == LiteralLexer.VALUE || t == LiteralLexer.STRING) {
+                if (st == -1) st = lexer.start();
+                ed = lexer.end();
+            } else if (t == LiteralLexer.OPEN && isFlat && st == -1) {
+                continue;
+            } else if (t == LiteralLexer.OPEN) {
+                if (st == -1) st = lexer.start();
+                if (nested == -1) nested = bounds.size >> 1;
+                lexer.skipGroup();
+                ed = lexer.end();
+            } else if (t == LiteralLexer.COMMA) {
+                bounds.add(st == -1 ? lexer.start() : st);
+                bounds.add(st == -1 ? lexer.start() : ed);
+                st = -1;
+                isSplit = true;
+            } else {
+                // 右括号或者结束
+                if (st != -1 || isSplit) {
+                    bounds.add(st == -1 ? lexer.start() : st);
+                    bounds.add(st == -1 ? lexer.start() : ed);
                 }
-            } else if (c == interruptFlag) {
-                if (sb != null) {
-                    t.add(sb.toString());
+                return nested;
+            }
+        }
+    }
+
+    /**
+     * Reads the rows of a two dimensional group whose opening bracket was just read.
+     * After each row the number of element pairs read so far is appended to {@code rowEnds}.
+     *
+     * @param lexer   the lexer, positioned after the outer opening bracket
+     * @param bounds  receives the element bounds
+     * @param rowEnds receives the element count at the end of every row
+     * @throws NumberFormatException if a row holds a nested group or a value stands outside a row,
+     *                               i.e. the input has more or fewer dimensions than expected
+     */
+    private static void readRows(LiteralLexer lexer, ArrayScanner.IntBuffer bounds, ArrayScanner.IntBuffer rowEnds) {
+        while (true) {
+            int t = lexer.next();
+            if (t == LiteralLexer.OPEN) {
+                int nested = readGroup(lexer, bounds);
+                if (nested != -1) {
+                    throw LiteralLexer.error(lexer.input(), bounds.data[nested << 1], bounds.data[nested << 1 | 1]);
                 }
-                sb = null;
+                rowEnds.add(bounds.size >> 1);
+            } else if (t == LiteralLexer.CLOSE || t == LiteralLexer.END) {
+                return;
             } else {
-                if (sb == null) {
-                    sb = new StringBuilder();
+                checkOutside(lexer);
+            }
+        }
+    }
+
+    /**
+     * Checks a token that stands between the groups of a level; only commas and {@code null} may stand there.
+     *
+     * @param lexer the lexer, positioned on the token
+     * @throws NumberFormatException if the token is a value
+     */
+    private static void checkOutside(LiteralLexer lexer) {
+        if (lexer.type() != LiteralLexer.COMMA && !lexer.isNull()) {
+            throw LiteralLexer.error(lexer.input(), lexer.start(), lexer.end());
+        }
+    }
+
+    /**
+     * Reads a three dimensional input. After each block the number of rows read so far is appended
+     * to {@code blockEnds}.
+     *
+     * @param input     the input
+     * @param bounds    receives the element bounds
+     * @param rowEnds   receives the element count at the end of every row
+     * @param blockEnds receives the row count at the end of every block
+     * @throws NumberFormatException if the input has more or fewer dimensions than expected
+     */
+    private static void readBlocks(CharSequence input, ArrayScanner.IntBuffer bounds, ArrayScanner.IntBuffer rowEnds, ArrayScanner.IntBuffer blockEnds) {
+        LiteralLexer lexer = new LiteralLexer(input);
+        if (!nextOpen(lexer)) {
+            return;
+        }
+        while (true) {
+            int t = lexer.next();
+            if (t == LiteralLexer.OPEN) {
+                readRows(lexer, bounds, rowEnds);
+                blockEnds.add(rowEnds.size);
+            } else if (t == LiteralLexer.CLOSE || t == LiteralLexer.END) {
+                return;
+            } else {
+                checkOutside(lexer);
+            }
+        }
+    }
+
+    /**
+     * Copies a range of the input, leaving out the characters ignored by {@link StringUtils#isIgnore(char, char)}.
+     * A substring is only built when nothing has to be left out.
+     *
+     * @param input  the input
+     * @param start  the start offset, inclusive
+     * @param end    the end offset, exclusive
+     * @param stChar the first character of the whole input
+     * @return the cleaned text
+     */
+    private static String stripIgnore(String input, int start, int end, char stChar) {
+        for (int i = start; i < end; i++) {
+            if (StringUtils.isIgnore(input.charAt(i), stChar)) {
+                StringBuilder sb = new StringBuilder(end - start);
+                for (int k = start; k < end; k++) {
+                    char c = input.charAt(k);
+                    if (!StringUtils.isIgnore(c, stChar)) sb.append(c);
                 }
-                sb.append(c);
+                return sb.toString();
             }
         }
-        return ans;
+        return input.substring(start, end);
+    }
+
+    /**
+     * Returns the first character of an element, like {@code element.charAt(0)}, without copying the element.
+     */
+    private static char firstChar(String input, int start, int end) {
+        if (start == end) {
+            throw new StringIndexOutOfBoundsException(0);
+        }
+        return input.charAt(start);
     }
 
 
@@ -1422,6 +1682,7 @@ public class ReflectUtils {
      * The method identifies the start, end, and intermediate delimiters either from the input string's flags
      * or defaults to predefined values. It then processes the string to extract substrings separated by the
      * intermediate delimiter, while accounting for nested structures defined by the start and end delimiters.
+     * Nested groups and quoted strings are kept whole, so a comma inside them does not split the element.
      *
      * @param s the input string to be parsed, which may contain nested structures and delimiters
      * @return an array of strings representing the parsed components of the input string,
@@ -1429,76 +1690,25 @@ public class ReflectUtils {
      */
     // constructor class parse
     public static String[] parseConstrunctorClassString(String s) {
-        int st = 0, ed = s.length() - 1;
-        char start = 0;
-        char end = 0;
-        char inter = 0;
+        ArrayScanner.IntBuffer bounds = new ArrayScanner.IntBuffer(16);
         char[] flag = ReflectUtils.getFlag(s);
         if (flag[3] == 'Y') {
-            start = flag[0];
-            end = flag[1];
-            inter = flag[2];
-            while (st < s.length() && s.charAt(st) != start) {
-                st++;
-            }
-            while (ed >= 0 && s.charAt(ed) != end) {
-                ed--;
+            LiteralLexer lexer = new LiteralLexer(s, flag[0], flag[1]);
+            if (nextOpen(lexer)) {
+                readGroup(lexer, bounds);
             }
         } else {
-            start = '[';
-            end = ']';
-            inter = ',';
-            ed = s.length();
-            st = -1;
-        }
-        int deep = 0;
-        List<String> ans = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        for (int i = st + 1; i < ed; i++) {
-            char c = s.charAt(i);
-            if (c == start) {
-                deep++;
-                if (sb == null) sb = new StringBuilder();
-                sb.append(c);
-            } else if (c == end) {
-                deep--;
-                if (sb != null) {
-                    sb.append(c);
-                }
-                if (deep == 0) {
-                    ans.add(sb.toString());
-                    sb = null;
-                }
-            } else if (c == inter) {
-                if (sb != null) {
-                    if (deep == 0) {
-                        ans.add(sb.toString());
-                        sb = null;
-                    } else {
-                        sb.append(c);
-                    }
-                } else {
-                    sb = new StringBuilder();
-                }
-            } else {
-                if (sb == null) {
-                    sb = new StringBuilder();
-                }
-                sb.append(c);
-
-            }
-
-
+            // 没有外层括号 整行作为括号内的内容
+            readGroup(new LiteralLexer(s, '[', ']'), bounds);
         }
-        if (sb != null) {
-            ans.add(sb.toString());
+        if (bounds.size == 0) {
+            // 空操作 [] 也占一个位置
+            return new String[]{StringUtils.ingoreString("")};
         }
-
-        String[] strings = new String[ans.size()];
-        for (int i = 0; i < ans.size(); i++) {
-            strings[i] = StringUtils.ingoreString(ans.get(i));
+        String[] strings = new String[bounds.size >> 1];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = StringUtils.ingoreString(s.substring(bounds.data[i << 1], bounds.data[i << 1 | 1]));
         }
-
         return strings;
     }
 
@@ -1579,7 +1789,8 @@ public class ReflectUtils {
         if (name.contains("$")) {
             String[] ss = name.split("\\$");
             try {
-                return Class.forName(ss[0]);
+                // 从同一个类加载器查找 隔离加载的类不会拿到另一个版本
+                return Class.forName(ss[0], false, src.getClassLoader());
             } catch (ClassNotFoundException e) {
                 return src;
             }
@@ -1593,10 +1804,12 @@ public class ReflectUtils {
      * This method internally uses Double.parseDouble to convert the string and then passes the result
      * to an overloaded parseDouble method.
      *
+     * @deprecated Results are compared with a tolerance by {@link DoubleJudge}, use {@link Double#parseDouble(String)} instead
      * @param d the string to be parsed as a double value; must not be null and should contain a valid
      *          numeric representation
      * @return the primitive double value corresponding to the input string
      */
+    @Deprecated
     public static double parseDouble(String d) {
         return parseDouble(Double.parseDouble(d));
     }
@@ -1604,11 +1817,13 @@ public class ReflectUtils {
     /**
      * Parses a double value and rounds it to five decimal places.
      *
+     * @deprecated Results are compared with a tolerance by {@link DoubleJudge} instead of this rounding
      * @param d the double value to be parsed and rounded
      * @return the double value rounded to five decimal places
      */
     // https://leetcode.cn/problems/minimum-cost-to-hire-k-workers
     // 结果保留五位小数
+    @Deprecated
     public static double parseDouble(double d) {
         return Double.parseDouble(String.format("%.5f", d));
     }
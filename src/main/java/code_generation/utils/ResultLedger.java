@@ -0,0 +1,338 @@
+package code_generation.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The verdict of every test case from the last runs, stored next to the input file as {@code in.txt.ledger}.
+ *
+ * <p>The ledger is keyed by a SHA-256 hash of the input file and the signature of the method under test,
+ * and by a SHA-256 hash of the bytecode of the solution and of the classes that parse and judge the cases.
+ * While both keys match, cases that passed before are skipped by {@link IoUtil#startValid} unless the
+ * ledger is forced, see {@code @TestCaseGroup(ledger = true, force = true)}. When the bytecode changed every case
+ * runs again, and in both cases the ones that failed last time run first, so the answer to the change just
+ * made comes back before the rest. A changed input file starts an empty ledger.</p>
+ *
+ * <p>The bytecode hash covers the top level class of the solution, its nested classes and their anonymous
+ * classes, read through the class loader of the solution, and the harness classes in {@link #HARNESS}, so a
+ * new version of the parser or the judge runs every case again.</p>
+ *
+ * <pre>
+ * file := magic version inputKeyLength inputKey classKeyLength classKey count status[count]
+ * </pre>
+ *
+ * @author wuxin0011
+ * @since 1.0
+ */
+public class ResultLedger {
+
+    /**
+     * Suffix appended to the input file name.
+     */
+    public static final String SUFFIX = ".ledger";
+
+    private static final int MAGIC = 0x4347434C;
+
+    private static final int VERSION = 1;
+
+    private static final byte UNKNOWN = 0, PASSED = 1, FAILED = 2;
+
+    /**
+     * 解析和判定用例的类 修改后之前的结果不再可信
+     */
+    private static final Class<?>[] HARNESS = {IoUtil.class, ParserPlan.class, ReflectUtils.class, TestUtils.class,
+            DoubleJudge.class, ArrayComparator.class, UnorderedComparator.class};
+
+    /**
+     * {@link #HARNESS} 的哈希 只计算一次
+     */
+    private static volatile byte[] harnessKey;
+
+    private final File file;
+
+    private final byte[] inputKey;
+
+    private final byte[] classKey;
+
+    /**
+     * 是否也运行上次已通过的用例 结果仍然记录
+     */
+    private final boolean force;
+
+    /**
+     * 上次记录的结果 下标 i 是第 i + 1 个用例
+     */
+    private byte[] previous = new byte[0];
+
+    /**
+     * 本次运行的结果
+     */
+    private final Map<Integer, Byte> results = new HashMap<>();
+
+    private int failedCount;
+
+    private int lastFailed;
+
+    private ResultLedger(File file, byte[] inputKey, byte[] classKey, boolean force) {
+        this.file = file;
+        this.inputKey = inputKey;
+        this.classKey = classKey;
+        this.force = force;
+    }
+
+    /**
+     * Opens the ledger of an input file for the given method.
+     *
+     * @param input         the input file, may be null when the cases do not come from a file
+     * @param method        the method under test
+     * @param src           the class the method is invoked on
+     * @param isLongContent whether the input is read as #content# segments
+     * @param force         whether the cases that passed before run as well
+     * @return the ledger, or null if the keys can not be computed
+     */
+    public static ResultLedger open(File input, Method method, Class<?> src, boolean isLongContent, boolean force) {
+        return input == null ? null : open(input, src, new InputKey(input, method, isLongContent), force);
+    }
+
+    /**
+     * Opens the ledger of an input file with a key that may be shared with {@link CaseCache}.
+     *
+     * @param input the input file, may be null when the cases do not come from a file
+     * @param src   the class the method is invoked on
+     * @param key   the hash of the input and the method
+     * @param force whether the cases that passed before run as well
+     * @return the ledger, or null if the keys can not be computed
+     */
+    static ResultLedger open(File input, Class<?> src, InputKey key, boolean force) {
+        if (input == null || !input.isFile() || input.length() > Integer.MAX_VALUE) {
+            return null;
+        }
+        try {
+            byte[] inputKey = key.get();
+            byte[] classKey = hashClass(src);
+            if (classKey == null) {
+                return null;
+            }
+            ResultLedger ledger = new ResultLedger(new File(input.getPath() + SUFFIX), inputKey, classKey, force);
+            ledger.load();
+            return ledger;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            System.err.println("result ledger disabled " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether a case passed before with the same bytecode and is skipped.
+     *
+     * @param caseNo the one based case number
+     * @return true if the case does not need to run
+     */
+    public boolean isSkipped(int caseNo) {
+        return !force && status(caseNo) == PASSED;
+    }
+
+    /**
+     * Returns whether a case failed in the last run that reached it.
+     *
+     * @param caseNo the one based case number
+     * @return true if the case runs first
+     */
+    public boolean isFailedBefore(int caseNo) {
+        return status(caseNo) == FAILED;
+    }
+
+    private byte status(int caseNo) {
+        return caseNo >= 1 && caseNo <= previous.length ? previous[caseNo - 1] : UNKNOWN;
+    }
+
+    /**
+     * Returns the number of cases that failed before.
+     *
+     * @return the failed case count
+     */
+    public int failedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the largest case number that failed before.
+     *
+     * @return the case number, 0 if none failed
+     */
+    public int lastFailed() {
+        return lastFailed;
+    }
+
+    /**
+     * Records the verdict of a case of this run.
+     *
+     * @param caseNo   the one based case number
+     * @param accepted whether the case was accepted
+     */
+    public void record(int caseNo, boolean accepted) {
+        results.put(caseNo, accepted ? PASSED : FAILED);
+    }
+
+    /**
+     * Writes the verdicts of this run over the previous ones. Cases that did not run keep their verdict.
+     */
+    public void save() {
+        if (results.isEmpty()) {
+            return;
+        }
+        int count = previous.length;
+        for (int caseNo : results.keySet()) {
+            count = Math.max(count, caseNo);
+        }
+        byte[] status = Arrays.copyOf(previous, count);
+        for (Map.Entry<Integer, Byte> entry : results.entrySet()) {
+            status[entry.getKey() - 1] = entry.getValue();
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(inputKey.length);
+            out.write(inputKey);
+            out.writeInt(classKey.length);
+            out.write(classKey);
+            out.writeInt(status.length);
+            out.write(status);
+        } catch (IOException e) {
+            System.err.println("write result ledger failed " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("write result ledger failed " + e.getMessage());
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Reads the ledger file. A different input key discards it, a different class key forgets the passed cases.
+     */
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            byte[] storedInput = new byte[in.readInt()];
+            in.readFully(storedInput);
+            if (!Arrays.equals(storedInput, inputKey)) {
+                return;
+            }
+            byte[] storedClass = new byte[in.readInt()];
+            in.readFully(storedClass);
+            byte[] status = new byte[in.readInt()];
+            in.readFully(status);
+            boolean isSameClass = Arrays.equals(storedClass, classKey);
+            for (int i = 0; i < status.length; i++) {
+                if (status[i] == FAILED) {
+                    failedCount++;
+                    lastFailed = i + 1;
+                } else if (!isSameClass) {
+                    // 代码已修改 通过的用例需要重新运行
+                    status[i] = UNKNOWN;
+                }
+            }
+            this.previous = status;
+        } catch (IOException | RuntimeException ignore) {
+            // 记录文件损坏 当作没有记录处理
+        }
+    }
+
+    /**
+     * Hashes the bytecode of the top level class of {@code src} and of every class nested in it.
+     *
+     * @return the hash, or null if a class file can not be read
+     */
+    static byte[] hashClass(Class<?> src) throws IOException, NoSuchAlgorithmException {
+        Class<?> top = src;
+        while (top.getEnclosingClass() != null) {
+            top = top.getEnclosingClass();
+        }
+        ClassLoader loader = top.getClassLoader();
+        if (loader == null) {
+            return null;
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] harness = harnessKey();
+        if (harness == null || !hashClass(top, loader, digest)) {
+            return null;
+        }
+        digest.update(harness);
+        return digest.digest();
+    }
+
+    private static byte[] harnessKey() throws IOException, NoSuchAlgorithmException {
+        byte[] key = harnessKey;
+        if (key == null) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Class<?> harness : HARNESS) {
+                ClassLoader loader = harness.getClassLoader();
+                if (!update(harness.getName(), loader == null ? ClassLoader.getSystemClassLoader() : loader, digest)) {
+                    return null;
+                }
+            }
+            harnessKey = key = digest.digest();
+        }
+        return key;
+    }
+
+    private static boolean hashClass(Class<?> c, ClassLoader loader, MessageDigest digest) throws IOException {
+        if (!update(c.getName(), loader, digest)) {
+            return false;
+        }
+        // 匿名类不在 getDeclaredClasses 中 按编号依次查找
+        int i = 1;
+        while (update(c.getName() + "$" + i, loader, digest)) {
+            i++;
+        }
+        Class<?>[] inner = c.getDeclaredClasses();
+        Arrays.sort(inner, (a, b) -> a.getName().compareTo(b.getName()));
+        for (Class<?> nested : inner) {
+            if (!hashClass(nested, loader, digest)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean update(String className, ClassLoader loader, MessageDigest digest) throws IOException {
+        try (InputStream in = loader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (in == null) {
+                return false;
+            }
+            digest.update(className.getBytes(StandardCharsets.UTF_8));
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                digest.update(buf, 0, n);
+            }
+            return true;
+        }
+    }
+}
@@ -99,7 +99,7 @@ public class TestUtils {
     /**
      * Compares two lists for equality, with an option for strict or non-strict comparison.
      * In strict mode, the method checks for equality of elements at the same indices in both lists.
-     * In non-strict mode, the method compares the lists as sets, disregarding element order.
+     * In non-strict mode, the method compares the lists as multisets, disregarding element order.
      * If the lists are identical, the method returns true; otherwise, it logs the differences
      * and returns false.
      *
@@ -111,12 +111,26 @@ public class TestUtils {
      * false otherwise
      */
     public static boolean deepEqual(List<?> b, List<?> expect, boolean isStrict) {
+        return deepEqual(b, expect, isStrict, DoubleJudge.DEFAULT);
+    }
+
+    /**
+     * Compares two lists like {@link #deepEqual(List, List, boolean)}, comparing {@code Double} elements
+     * with the given tolerance.
+     *
+     * @param b        the actual list
+     * @param expect   the expected list
+     * @param isStrict whether the elements must be in the same order
+     * @param judge    the tolerance of floating point values
+     * @return true if the lists are considered equal
+     */
+    public static boolean deepEqual(List<?> b, List<?> expect, boolean isStrict, DoubleJudge judge) {
         if (expect == b) {
             return true;
         }
         if (expect == null || b == null || expect.size() != b.size()) {
 //            System.out.println("result.size() != expect.size()");
-            printDiffInfo(String.valueOf(expect), String.valueOf(b));
+            DiffPrinter.print(expect, b);
             return false;
         }
         int n = expect.size();
@@ -125,7 +139,7 @@ public class TestUtils {
             for (int i = 0; i < n; i++) {
                 Object t1 = expect.get(i);
                 Object t2 = b.get(i);
-                if (t1 == null || !valid(t1, t2, t1.getClass().getSimpleName(), isStrict)) {
+                if (t1 == null || !valid(t1, t2, t1.getClass().getSimpleName(), isStrict, false, judge)) {
                     idx = i;
                     break;
                 }
@@ -136,27 +150,38 @@ public class TestUtils {
             } else {
                 // System.out.println("error");
                 // System.out.println("index = " + idx + ",Expect: " + expect.get(idx) + ",Result: " + CustomColor.error(b.get(idx)));
-                printDiffInfo(String.valueOf(expect), String.valueOf(b));
+                DiffPrinter.print(expect, b);
                 return false;
             }
         } else {
-            Set<Object> aset = new HashSet<>();
-            Set<Object> bset = new HashSet<>();
-            for (int i = 0; i < n; i++) {
-                Object t1 = expect.get(i);
-                Object t2 = b.get(i);
-                aset.add(t1);
-                bset.add(t2);
-            }
-            return valid(aset, bset);
+            return unorderedEqual(b, expect, judge);
         }
 
     }
 
+    /**
+     * Compares two lists as multisets, counting duplicates. Lists of integers, longs and lists of
+     * integers are sorted into primitive arrays first, see {@link UnorderedComparator#canonical(List)},
+     * and a difference is printed around the first mismatch of the sorted values.
+     *
+     * @param b      the actual list
+     * @param expect the expected list
+     * @param judge  the tolerance of floating point values
+     * @return true if both lists hold the same elements the same number of times
+     */
+    private static boolean unorderedEqual(List<?> b, List<?> expect, DoubleJudge judge) {
+        Object r = UnorderedComparator.canonical(b);
+        Object e = UnorderedComparator.canonical(expect);
+        if (r != null && e != null && r.getClass() == e.getClass()) {
+            return valid(r, e, r.getClass().getSimpleName(), true, true, judge);
+        }
+        return UnorderedComparator.countEquals(b, expect);
+    }
+
     /**
      * Compares two arrays for equality, with an option for strict or non-strict comparison.
      * In strict mode, the method checks for equality of elements at the same indices in both arrays.
-     * In non-strict mode, the method compares the arrays as sets, disregarding element order.
+     * In non-strict mode, the method compares the arrays as multisets, disregarding element order.
      * If the arrays are identical based on the specified comparison mode, the method returns true;
      * otherwise, it returns false.
      *
@@ -190,14 +215,7 @@ public class TestUtils {
             }
             return true;
         } else {
-            Set<Object> aset = new HashSet<>();
-            Set<Object> bset = new HashSet<>();
-            for (int i = 0; i < a.length; i++) {
-                aset.add(a[i]);
-                bset.add(b[i]);
-            }
-            // valid
-            return valid(aset, bset);
+            return unorderedEqual(Arrays.asList(a), Arrays.asList(b), DoubleJudge.DEFAULT);
         }
 
     }
@@ -284,57 +302,16 @@ public class TestUtils {
      * Compares two TreeNode objects for deep equality.
      * This method checks if both TreeNode objects are identical by comparing their values and structure iteratively.
      * If both nodes are null, they are considered equal. If one is null and the other is not, they are not equal.
-     * The method uses a breadth-first traversal approach to compare each node's value and its children.
-     * If any mismatch is found in the values or structure, the method returns false.
+     * The trees are walked together in level order without recursion, so skewed trees of any depth are supported,
+     * and a left child is never matched against a right child.
      *
      * @param result the first TreeNode to compare, representing the actual result or state
      * @param expect the second TreeNode to compare, representing the expected result or state
      * @return true if both TreeNode objects are deeply equal, false otherwise
+     * @see TreeComparator
      */
     public static boolean deepEqual(TreeNode result, TreeNode expect) {
-        if (result == expect) return true;
-        if (result == null || expect == null) return false;
-
-        Deque<TreeNode> rq = new ArrayDeque<>();
-        Deque<TreeNode> eq = new ArrayDeque<>();
-        rq.add(result);
-        eq.add(expect);
-
-        while (!rq.isEmpty() && !eq.isEmpty()) {
-            int s1 = rq.size();
-            int s2 = eq.size();
-            if (s1 != s2) {
-                return false;
-            }
-            int size = s1;
-            while (size > 0) {
-                size--;
-                TreeNode rNode = rq.poll();
-                TreeNode eNode = eq.poll();
-                if (rNode == null || eNode == null) {
-                    return false;
-                }
-                if (rNode.val != eNode.val) {
-                    return false;
-                }
-
-                if (rNode.left != null) {
-                    rq.add(rNode.left);
-                }
-                if (rNode.right != null) {
-                    rq.add(rNode.right);
-                }
-
-                if (eNode.left != null) {
-                    eq.add(eNode.left);
-                }
-                if (eNode.right != null) {
-                    eq.add(eNode.right);
-                }
-
-            }
-        }
-        return rq.size() == eq.size();
+        return TreeComparator.mismatch(expect, result) == null;
     }
 
     /**
@@ -413,11 +390,29 @@ public class TestUtils {
      * @return true if the result matches the expected value according to the specified rules, false otherwise
      */
     public static boolean valid(Object result, Object expect, String returnType, boolean isStrict, boolean isPrintInfo) {
+        return valid(result, expect, returnType, isStrict, isPrintInfo, DoubleJudge.DEFAULT);
+    }
+
+    /**
+     * Validates a result like {@link #valid(Object, Object, String, boolean, boolean)}, comparing
+     * {@code double}, {@code double[]} and {@code double[][]} values with the given tolerance.
+     *
+     * @param result      the actual result to be validated
+     * @param expect      the expected value
+     * @param returnType  a String representing the type of the expected and result values
+     * @param isStrict    a boolean flag indicating whether the comparison should be strict
+     * @param isPrintInfo a boolean flag indicating whether to print detailed information about mismatches
+     * @param judge       the tolerance of floating point values, see {@link code_generation.annotation.Tolerance}
+     * @return true if the result matches the expected value, false otherwise
+     */
+    public static boolean valid(Object result, Object expect, String returnType, boolean isStrict, boolean isPrintInfo, DoubleJudge judge) {
         if (result == expect) {
             return true;
         }
         if (result == null) {
-            printDiffInfo(String.valueOf(expect), "null", isPrintInfo);
+            if (isPrintInfo) {
+                DiffPrinter.print(expect, null);
+            }
             return false;
         }
         if (returnType == null) {
@@ -430,161 +425,140 @@ public class TestUtils {
         try {
             switch (returnType) {
                 case "int[]": {
-                    Integer[] e = covert((int[]) expect);
-                    Integer[] r = covert((int[]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
+                    int[] r = (int[]) result;
+                    int[] e = (int[]) expect;
+                    if (!isStrict) {
+                        // 无序比较 排序后按有序比较
+                        r = UnorderedComparator.sorted(r);
+                        e = UnorderedComparator.sorted(e);
                     }
-                    return ok;
+                    return isSame(r, e, path(ArrayComparator.mismatch(r, e)), isPrintInfo, judge);
                 }
                 case "int[][]": {
-                    Integer[][] e = covert((int[][]) expect);
-                    Integer[][] r = covert((int[][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
+                    int[][] r = (int[][]) result;
+                    int[][] e = (int[][]) expect;
+                    if (!isStrict) {
+                        // 无序比较 忽略行的顺序和每行内的顺序
+                        r = UnorderedComparator.sortedRows(r);
+                        e = UnorderedComparator.sortedRows(e);
                     }
-                    return ok;
-                }
-                case "int[][][]": {
-                    Integer[][][] e = covert((int[][][]) expect);
-                    Integer[][][] r = covert((int[][][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
-                    }
-                    return ok;
+                    return isSame(r, e, ArrayComparator.mismatch(r, e), isPrintInfo, judge);
                 }
+                case "int[][][]":
+                    // 多维数组按位置比较
+                    return isSame(result, expect, ArrayComparator.mismatch((int[][][]) result, (int[][][]) expect), isPrintInfo, judge);
                 case "Long[]":
                 case "long[]": {
-                    Long[] e = covert((long[]) expect);
-                    Long[] r = covert((long[]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
+                    long[] r = (long[]) result;
+                    long[] e = (long[]) expect;
+                    if (!isStrict) {
+                        // 无序比较 排序后按有序比较
+                        r = UnorderedComparator.sorted(r);
+                        e = UnorderedComparator.sorted(e);
                     }
-                    return ok;
+                    return isSame(r, e, path(ArrayComparator.mismatch(r, e)), isPrintInfo, judge);
                 }
                 case "Long[][]":
                 case "long[][]": {
-                    Long[][] e = covert((long[][]) expect);
-                    Long[][] r = covert((long[][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
+                    long[][] r = (long[][]) result;
+                    long[][] e = (long[][]) expect;
+                    if (!isStrict) {
+                        // 无序比较 忽略行的顺序和每行内的顺序
+                        r = UnorderedComparator.sortedRows(r);
+                        e = UnorderedComparator.sortedRows(e);
                     }
-                    return ok;
+                    return isSame(r, e, ArrayComparator.mismatch(r, e), isPrintInfo, judge);
                 }
                 case "Double":
                 case "double": {
-                    double r = ReflectUtils.parseDouble(String.valueOf(result));
-                    double e = ReflectUtils.parseDouble(String.valueOf(expect));
-                    ok = r == e;
-                    if (!ok) {
+                    double r = ((Number) result).doubleValue();
+                    double e = ((Number) expect).doubleValue();
+                    ok = judge.accept(e, r);
+                    if (!ok && isPrintInfo) {
                         System.out.println("Expect:" + e);
-                        System.out.println("Result:" + CustomColor.error(r));
+                        System.out.println("Result:" + CustomColor.error(r) + " (" + judge + ")");
                     }
                     return ok;
                 }
                 case "double[]": {
-                    Double[] e = covert((double[]) expect);
-                    Double[] r = covert((double[]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
+                    double[] r = (double[]) result;
+                    double[] e = (double[]) expect;
+                    if (!isStrict) {
+                        // 无序比较 排序后按有序比较
+                        r = UnorderedComparator.sorted(r);
+                        e = UnorderedComparator.sorted(e);
                     }
-                    return ok;
-                }
-                case "double[][]": {
-                    Double[][] e = covert((double[][]) expect);
-                    Double[][] r = covert((double[][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
-                    }
-                    return ok;
+                    return isSame(r, e, path(judge.mismatch(e, r)), isPrintInfo, judge);
                 }
+                case "double[][]":
+                    // 多维数组按位置比较
+                    return isSame(result, expect, judge.mismatch((double[][]) expect, (double[][]) result), isPrintInfo, judge);
                 case "float[]": {
-                    Float[] e = covert((float[]) expect);
-                    Float[] r = covert((float[]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
+                    float[] r = (float[]) result;
+                    float[] e = (float[]) expect;
+                    if (!isStrict) {
+                        // 无序比较 排序后按有序比较
+                        r = UnorderedComparator.sorted(r);
+                        e = UnorderedComparator.sorted(e);
                     }
-                    return ok;
+                    return isSame(r, e, path(ArrayComparator.mismatch(r, e)), isPrintInfo, judge);
                 }
                 case "String[]": {
                     String[] r = (String[]) result;
                     String[] e = (String[]) expect;
                     ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
+                    if (!ok && isPrintInfo) {
+                        DiffPrinter.print(e, r);
                     }
                     return ok;
                 }
                 case "String[][]":
                     ok = deepEqual((String[][]) result, (String[][]) expect, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString((String[][]) expect), Arrays.deepToString((String[][]) result), isPrintInfo);
+                    if (!ok && isPrintInfo) {
+                        DiffPrinter.print(expect, result);
                     }
                     return ok;
                 case "String[][][]":
                     ok = deepEqual((String[][][]) result, (String[][][]) expect, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString((String[][][]) expect), Arrays.deepToString((String[][][]) result), isPrintInfo);
+                    if (!ok && isPrintInfo) {
+                        DiffPrinter.print(expect, result);
                     }
                     return ok;
                 case "char[]": {
-                    Character[] e = covert((char[]) expect);
-                    Character[] r = covert((char[]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
-                    }
-                    return ok;
-                }
-                case "char[][]": {
-                    Character[][] e = covert((char[][]) expect);
-                    Character[][] r = covert((char[][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
-                    }
-                    return ok;
-                }
-                case "char[][][]": {
-                    Character[][][] e = covert((char[][][]) expect);
-                    Character[][][] r = covert((char[][][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
+                    char[] r = (char[]) result;
+                    char[] e = (char[]) expect;
+                    if (!isStrict) {
+                        // 无序比较 排序后按有序比较
+                        r = UnorderedComparator.sorted(r);
+                        e = UnorderedComparator.sorted(e);
                     }
-                    return ok;
-                }
+                    return isSame(r, e, path(ArrayComparator.mismatch(r, e)), isPrintInfo, judge);
+                }
+                case "char[][]":
+                    // 多维数组按位置比较
+                    return isSame(result, expect, ArrayComparator.mismatch((char[][]) result, (char[][]) expect), isPrintInfo, judge);
+                case "char[][][]":
+                    // 多维数组按位置比较
+                    return isSame(result, expect, ArrayComparator.mismatch((char[][][]) result, (char[][][]) expect), isPrintInfo, judge);
                 case "boolean[]": {
-                    Boolean[] e = covert((boolean[]) expect);
-                    Boolean[] r = covert((boolean[]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.toString(e), Arrays.toString(r), isPrintInfo);
+                    boolean[] r = (boolean[]) result;
+                    boolean[] e = (boolean[]) expect;
+                    if (!isStrict) {
+                        // 无序比较 排序后按有序比较
+                        r = UnorderedComparator.sorted(r);
+                        e = UnorderedComparator.sorted(e);
                     }
-                    return ok;
-                }
-                case "boolean[][]": {
-                    Boolean[][] e = covert((boolean[][]) expect);
-                    Boolean[][] r = covert((boolean[][]) result);
-                    ok = deepEqual(r, e, isStrict);
-                    if (!ok) {
-                        printDiffInfo(Arrays.deepToString(e), Arrays.deepToString(r), isPrintInfo);
-                    }
-                    return ok;
+                    return isSame(r, e, path(ArrayComparator.mismatch(r, e)), isPrintInfo, judge);
                 }
+                case "boolean[][]":
+                    // 多维数组按位置比较
+                    return isSame(result, expect, ArrayComparator.mismatch((boolean[][]) result, (boolean[][]) expect), isPrintInfo, judge);
                 case "TreeNode": {
-                    TreeNode e = (TreeNode) expect;
-                    TreeNode r = (TreeNode) result;
-                    ok = deepEqual(r, e);
-                    return ok;
+                    String diff = TreeComparator.mismatch((TreeNode) expect, (TreeNode) result);
+                    if (diff != null && isPrintInfo) {
+                        System.out.println("Diff  : first at " + diff);
+                    }
+                    return diff == null;
                 }
                 case "ListNode": {
                     ListNode e = (ListNode) expect;
@@ -598,20 +572,18 @@ public class TestUtils {
 
                 case "List":
                 case "ArrayList":
-                    return deepEqual((ArrayList<Object>) result, (ArrayList<Object>) expect, isStrict);
+                    return deepEqual((ArrayList<Object>) result, (ArrayList<Object>) expect, isStrict, judge);
                 default:
                     boolean t = expect != null && expect.equals(result);
                     boolean isArray = expect != null && expect.getClass().getSimpleName().contains("[]");
                     if (isArray) {
                         t = Arrays.deepEquals((Object[]) result, (Object[]) expect);
-                        if (!t) {
-                            // System.out.println("expect result = " + Arrays.deepToString((Object[]) expect) + ",but result = " + CustomColor.error(Arrays.deepToString((Object[]) result)));
-                            printDiffInfo(Arrays.deepToString((Object[]) expect), Arrays.deepToString((Object[]) result), isPrintInfo);
+                        if (!t && isPrintInfo) {
+                            DiffPrinter.print(expect, result);
                         }
                     } else {
-                        if (!t) {
-                            // System.out.println("expect result = " + expect + ",but result = " + CustomColor.error(result));
-                            printDiffInfo(String.valueOf(expect), String.valueOf(result), isPrintInfo);
+                        if (!t && isPrintInfo) {
+                            DiffPrinter.print(expect, result);
                         }
                     }
                     return t;
@@ -862,6 +834,31 @@ public class TestUtils {
     }
 
 
+    /**
+     * Finishes an ordered primitive array comparison. On a mismatch only the elements around the
+     * first difference are boxed and printed, see {@link DiffPrinter}.
+     *
+     * @param result      the actual array
+     * @param expect      the expected array
+     * @param path        the path of the first difference, null if the arrays are equal
+     * @param isPrintInfo whether to print the difference
+     * @param judge       the tolerance of {@code double} values
+     * @return true if the arrays are equal
+     */
+    private static boolean isSame(Object result, Object expect, int[] path, boolean isPrintInfo, DoubleJudge judge) {
+        if (path == null) {
+            return true;
+        }
+        if (isPrintInfo) {
+            DiffPrinter.print(expect, result, path, judge);
+        }
+        return false;
+    }
+
+    private static int[] path(int index) {
+        return index == -1 ? null : new int[]{index};
+    }
+
     /**
      * Checks if two sets are valid according to the defined criteria.
      * Two sets are considered valid if they are either the same instance,
@@ -911,6 +908,7 @@ public class TestUtils {
      * @param e           the expected result string to compare against
      * @param r           the actual result string to be compared
      * @param isPrintInfo a boolean flag that determines whether the comparison info should be printed
+     * @see DiffPrinter for values too large to print whole
      */
     public static void printDiffInfo(String e, String r, boolean isPrintInfo) {
         if (!isPrintInfo) return;
@@ -0,0 +1,215 @@
+package code_generation.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multiset comparison for answers that may be returned in any order.
+ *
+ * <p>The non-strict path of {@link TestUtils} used to put both sides into a {@link java.util.HashSet},
+ * which boxes and hashes every element and, worse, ignores how often each element occurs, so
+ * {@code [1,1,2]} and {@code [1,2,2]} were reported as equal. Here both sides are brought into a
+ * canonical order instead and then compared in order by {@link ArrayComparator}:</p>
+ * <ul>
+ *     <li>primitive arrays are copied and sorted</li>
+ *     <li>{@code int[][]} / {@code long[][]} sort a copy of every row, then sort the rows lexicographically,
+ *     so {@code [[3,2],[1,2]]} matches {@code [[1,2],[2,3]]}</li>
+ *     <li>{@code List<Integer>} / {@code List<Long>} / {@code List<Double>} are unboxed once into a sorted primitive array,
+ *     doubles are then compared with the tolerance of the caller</li>
+ *     <li>{@code List<List<Integer>>} becomes an {@code int[][]} whose rows are sorted as above</li>
+ * </ul>
+ * Anything else is compared by counting occurrences in a {@link HashMap}.
+ * The inputs are never modified.
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class UnorderedComparator {
+
+    private UnorderedComparator() {
+    }
+
+    public static int[] sorted(int[] a) {
+        int[] t = a.clone();
+        Arrays.sort(t);
+        return t;
+    }
+
+    public static long[] sorted(long[] a) {
+        long[] t = a.clone();
+        Arrays.sort(t);
+        return t;
+    }
+
+    public static char[] sorted(char[] a) {
+        char[] t = a.clone();
+        Arrays.sort(t);
+        return t;
+    }
+
+    public static double[] sorted(double[] a) {
+        double[] t = a.clone();
+        Arrays.sort(t);
+        return t;
+    }
+
+    public static float[] sorted(float[] a) {
+        float[] t = a.clone();
+        Arrays.sort(t);
+        return t;
+    }
+
+    /**
+     * Sorts a boolean array by counting, {@code false} first.
+     */
+    public static boolean[] sorted(boolean[] a) {
+        int falses = 0;
+        for (boolean v : a) {
+            if (!v) {
+                falses++;
+            }
+        }
+        boolean[] t = new boolean[a.length];
+        Arrays.fill(t, falses, t.length, true);
+        return t;
+    }
+
+    /**
+     * Returns a copy of the array with every row sorted and the rows in lexicographic order, null rows first.
+     * The rows are copied, the input is not modified.
+     */
+    public static int[][] sortedRows(int[][] a) {
+        int[][] t = new int[a.length][];
+        for (int i = 0; i < a.length; i++) {
+            t[i] = a[i] == null ? null : sorted(a[i]);
+        }
+        Arrays.sort(t, UnorderedComparator::compareRow);
+        return t;
+    }
+
+    /**
+     * @see #sortedRows(int[][])
+     */
+    public static long[][] sortedRows(long[][] a) {
+        long[][] t = new long[a.length][];
+        for (int i = 0; i < a.length; i++) {
+            t[i] = a[i] == null ? null : sorted(a[i]);
+        }
+        Arrays.sort(t, UnorderedComparator::compareRow);
+        return t;
+    }
+
+    /**
+     * Brings a list into the canonical order described in the class comment.
+     *
+     * @param list the list to convert
+     * @return a sorted {@code int[]}, {@code long[]}, {@code double[]} or {@code int[][]}, or null if the elements
+     * are of any other type
+     */
+    public static Object canonical(List<?> list) {
+        if (isAll(list, Integer.class)) {
+            int[] t = new int[list.size()];
+            for (int i = 0; i < t.length; i++) {
+                t[i] = (Integer) list.get(i);
+            }
+            Arrays.sort(t);
+            return t;
+        }
+        if (isAll(list, Long.class)) {
+            long[] t = new long[list.size()];
+            for (int i = 0; i < t.length; i++) {
+                t[i] = (Long) list.get(i);
+            }
+            Arrays.sort(t);
+            return t;
+        }
+        if (isAll(list, Double.class)) {
+            // 排序后逐个按误差比较
+            double[] t = new double[list.size()];
+            for (int i = 0; i < t.length; i++) {
+                t[i] = (Double) list.get(i);
+            }
+            Arrays.sort(t);
+            return t;
+        }
+        if (isAll(list, List.class)) {
+            int[][] rows = new int[list.size()][];
+            for (int i = 0; i < rows.length; i++) {
+                List<?> row = (List<?>) list.get(i);
+                if (!isAll(row, Integer.class)) {
+                    return null;
+                }
+                // 内层也不区分顺序 每一行先排序
+                rows[i] = new int[row.size()];
+                for (int j = 0; j < rows[i].length; j++) {
+                    rows[i][j] = (Integer) row.get(j);
+                }
+                Arrays.sort(rows[i]);
+            }
+            Arrays.sort(rows, UnorderedComparator::compareRow);
+            return rows;
+        }
+        return null;
+    }
+
+    /**
+     * Compares two lists as multisets by counting, for element types {@link #canonical(List)} does not handle.
+     *
+     * @param a the first list
+     * @param b the second list
+     * @return true if every element occurs equally often in both lists
+     */
+    public static boolean countEquals(List<?> a, List<?> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        Map<Object, int[]> count = new HashMap<>();
+        for (Object x : a) {
+            count.computeIfAbsent(x, k -> new int[1])[0]++;
+        }
+        for (Object x : b) {
+            int[] c = count.get(x);
+            if (c == null || c[0] == 0) {
+                return false;
+            }
+            c[0]--;
+        }
+        return true;
+    }
+
+    private static boolean isAll(List<?> list, Class<?> type) {
+        for (Object x : list) {
+            if (!type.isInstance(x)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareRow(int[] a, int[] b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? -1 : 1;
+        }
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(a[i], b[i]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    private static int compareRow(long[] a, long[] b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? -1 : 1;
+        }
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return Long.compare(a[i], b[i]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
@@ -0,0 +1,259 @@
+package code_generation.utils;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the JVM alive and reruns the tests every time the solution or its input file is saved.
+ *
+ * <p>Starting a new JVM for every edit pays JVM startup, the static initialization of {@code LocalConfig}
+ * and class loading each time. Watch mode does that once: it watches the directory of the solution with a
+ * {@link WatchService}, compiles the changed {@code .java} file in memory with the {@link JavaCompiler} of
+ * the running JDK, defines the new classes in a fresh child {@link ClassLoader} and calls
+ * {@link IoUtil#testUtil(Class, String, String)} on the reloaded class. A change of the input file alone
+ * reruns the last compiled class.</p>
+ *
+ * <p>Only the solution file is recompiled; other classes it uses come from the class path as they were
+ * when watch mode started. Compilation errors are printed and watching continues. A JDK is required,
+ * a JRE has no compiler.</p>
+ * <pre>
+ * public static void main(String[] args) {
+ *     WatchMode.watch(Solution.class, "twoSum", "in.txt");
+ * }
+ * </pre>
+ * @author wuxin0011
+ * @since 1.0
+ */
+public final class WatchMode {
+
+    /**
+     * 保存文件时通常会连续触发多次事件 等待该时间后合并处理
+     */
+    private static final long DEBOUNCE_MS = 50;
+
+    private WatchMode() {
+    }
+
+    /**
+     * Watches a solution and its default input file.
+     *
+     * @param src the solution class
+     */
+    public static void watch(Class<?> src) {
+        watch(src, IoUtil.DEFAULT_METHOD_NAME, IoUtil.DEFAULT_READ_FILE);
+    }
+
+    /**
+     * Watches a solution and its default input file.
+     *
+     * @param src        the solution class
+     * @param methodName the method to test
+     */
+    public static void watch(Class<?> src, String methodName) {
+        watch(src, methodName, IoUtil.DEFAULT_READ_FILE);
+    }
+
+    /**
+     * Runs the tests once and then again after every change, until the JVM is stopped.
+     *
+     * @param src        the solution class
+     * @param methodName the method to test
+     * @param fileName   the input file next to the solution
+     */
+    public static void watch(Class<?> src, String methodName, String fileName) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            System.err.println("no java compiler found , watch mode needs a JDK !");
+            return;
+        }
+        Class<?> origin = ReflectUtils.loadOrigin(src);
+        File dir = new File(IoUtil.buildAbsolutePath(origin));
+        String sourceName = origin.getSimpleName() + ".java";
+        File source = new File(dir, sourceName);
+        File input = new File(IoUtil.wrapperAbsolutePath(origin, fileName));
+        if (!source.isFile()) {
+            System.err.println("not find source file " + source.getAbsolutePath());
+            return;
+        }
+        System.out.println("watching " + source.getAbsolutePath() + " and " + input.getAbsolutePath());
+
+        Class<?> current = src;
+        rerun(current, methodName, fileName, input);
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            dir.toPath().register(service, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+            while (true) {
+                WatchKey key = service.take();
+                boolean sourceChanged = false, inputChanged = false;
+                // 合并短时间内的多次事件
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Object context = event.context();
+                        if (!(context instanceof Path)) {
+                            continue;
+                        }
+                        String name = context.toString();
+                        sourceChanged |= name.equals(sourceName);
+                        inputChanged |= name.equals(input.getName());
+                    }
+                    key.reset();
+                } while ((key = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null);
+                if (sourceChanged) {
+                    long start = System.nanoTime();
+                    Class<?> reloaded = reload(compiler, source, src.getName());
+                    if (reloaded == null) {
+                        continue;
+                    }
+                    if (current != src) {
+                        ParserPlan.evict(current.getClassLoader());
+                        GenericTypeResolver.evict(current.getClassLoader());
+                    }
+                    current = reloaded;
+                    System.out.println("reloaded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                }
+                if (sourceChanged || inputChanged) {
+                    rerun(current, methodName, fileName, input);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("watch failed " + e.getMessage());
+        }
+    }
+
+    private static void rerun(Class<?> src, String methodName, String fileName, File input) {
+        System.out.println("======================================" + src.getSimpleName() + "=======================");
+        // testUtil 找不到输入文件会退出 JVM
+        if (!input.isFile()) {
+            System.err.println("not find " + input.getAbsolutePath() + " , waiting for it");
+            return;
+        }
+        try {
+            IoUtil.testUtil(src, methodName, fileName);
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compiles a source file in memory and loads one of its classes in a new class loader.
+     *
+     * @param compiler  the compiler
+     * @param source    the source file
+     * @param className the binary name of the class to load
+     * @return the loaded class, or null if the source does not compile
+     */
+    static Class<?> reload(JavaCompiler compiler, File source, String className) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        try (StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+             JavaFileManager manager = new MemoryFileManager(standard, classes)) {
+            Iterable<? extends JavaFileObject> units = standard.getJavaFileObjects(source);
+            boolean ok = compiler.getTask(null, manager, diagnostics,
+                    Arrays.asList("-classpath", System.getProperty("java.class.path"), "-encoding", "UTF-8", "-proc:none", "-nowarn"),
+                    null, units).call();
+            if (!ok) {
+                for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                    if (d.getKind() == Diagnostic.Kind.ERROR) {
+                        System.err.println(source.getName() + ":" + d.getLineNumber() + " " + d.getMessage(null));
+                    }
+                }
+                return null;
+            }
+            Map<String, byte[]> bytes = new HashMap<>();
+            for (Map.Entry<String, ByteArrayOutputStream> entry : classes.entrySet()) {
+                bytes.put(entry.getKey(), entry.getValue().toByteArray());
+            }
+            return new MemoryClassLoader(bytes, WatchMode.class.getClassLoader()).loadClass(className);
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("reload failed " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the compiled classes in memory instead of writing class files.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        MemoryFileManager(JavaFileManager manager, Map<String, ByteArrayOutputStream> classes) {
+            super(manager);
+            this.classes = classes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    classes.put(className, out);
+                    return out;
+                }
+            };
+        }
+    }
+
+    /**
+     * Loads the recompiled classes before asking the parent, which still has the old versions on its class path.
+     */
+    private static final class MemoryClassLoader extends ChildFirstClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        MemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected boolean isOwned(String name) {
+            return classes.containsKey(name);
+        }
+
+        @Override
+        protected byte[] readClass(String name) {
+            return classes.get(name);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            // 类文件返回重新编译后的字节码 用于计算结果记录的哈希
+            if (name.endsWith(".class")) {
+                byte[] bytes = classes.get(name.substring(0, name.length() - 6).replace('/', '.'));
+                if (bytes != null) {
+                    return new ByteArrayInputStream(bytes);
+                }
+            }
+            return super.getResourceAsStream(name);
+        }
+    }
+}
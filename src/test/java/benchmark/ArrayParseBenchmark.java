@@ -0,0 +1,270 @@
+package benchmark;
+
+import code_generation.utils.ArrayScanner;
+import code_generation.utils.ReflectUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+
+/**
+ * Compares the character-scanning array parsers of {@link ArrayScanner} with the list based parsers
+ * {@link ReflectUtils} used before, on 1e6 and 1e7 element inputs. The list based parsers are frozen copies
+ * below, {@link ReflectUtils} itself parses through {@code LiteralLexer} now.
+ *
+ * <p>Run with a large heap, the list based parsers need about 1 GB for 1e7 elements:
+ * {@code java -Xmx4g benchmark.ArrayParseBenchmark [sizes...]}</p>
+ */
+public class ArrayParseBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{1_000_000, 10_000_000} : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        for (int n : sizes) {
+            Random random = new Random(n);
+            String ints = oneDimension(n, random, false);
+            String longs = oneDimension(n, random, true);
+            String intMatrix = twoDimension(n, 3, random, false);
+            String longMatrix = twoDimension(n, 3, random, true);
+            System.out.println("n = " + n);
+            check(Arrays.equals(ArrayScanner.scanIntArray(ints), legacyIntArray(ints)), "int[]");
+            check(Arrays.deepEquals(ArrayScanner.scanIntMatrix(intMatrix), legacyIntMatrix(intMatrix)), "int[][]");
+            check(Arrays.equals(ArrayScanner.scanLongArray(longs), legacyLongArray(longs)), "long[]");
+            check(Arrays.deepEquals(ArrayScanner.scanLongMatrix(longMatrix), legacyLongMatrix(longMatrix)), "long[][]");
+            bench("int[]     legacy", () -> legacyIntArray(ints));
+            bench("int[]     scanner", () -> ArrayScanner.scanIntArray(ints));
+            bench("long[]    legacy", () -> legacyLongArray(longs));
+            bench("long[]    scanner", () -> ArrayScanner.scanLongArray(longs));
+            bench("int[][]   legacy", () -> legacyIntMatrix(intMatrix));
+            bench("int[][]   scanner", () -> ArrayScanner.scanIntMatrix(intMatrix));
+            bench("long[][]  legacy", () -> legacyLongMatrix(longMatrix));
+            bench("long[][]  scanner", () -> ArrayScanner.scanLongMatrix(longMatrix));
+            System.out.println();
+        }
+    }
+
+    private static void bench(String name, Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.gc();
+            long st = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - st);
+        }
+        System.out.printf("%-20s %10.1f ms%n", name, best / 1e6);
+    }
+
+    private static void check(boolean ok, String name) {
+        if (!ok) {
+            throw new IllegalStateException(name + " result differs from the legacy parser");
+        }
+    }
+
+    private static String oneDimension(int n, Random random, boolean isLong) {
+        StringBuilder sb = new StringBuilder(n * 12).append('[');
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(isLong ? random.nextLong() : random.nextInt());
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String twoDimension(int n, int cols, Random random, boolean isLong) {
+        StringBuilder sb = new StringBuilder(n * 14).append('[');
+        for (int i = 0; i < n / cols; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('[');
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) sb.append(',');
+                sb.append(isLong ? random.nextLong() : random.nextInt(1_000_000));
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+
+    // 以下为原先基于 List 的解析方式 从 ReflectUtils 原样复制 不随 ReflectUtils 修改
+
+    private static int[] legacyIntArray(String input) {
+        List<Integer> ls = parseListInteger(input);
+        int[] ans = new int[ls.size()];
+        for (int i = 0; i < ans.length; i++) {
+            ans[i] = ls.get(i);
+        }
+        return ans;
+    }
+
+    private static int[][] legacyIntMatrix(String input) {
+        List<List<Integer>> ls = parseListDoubleInteger(input);
+        int[][] ans = new int[ls.size()][];
+        for (int i = 0; i < ans.length; i++) {
+            ans[i] = new int[ls.get(i).size()];
+            for (int j = 0; j < ans[i].length; j++) {
+                ans[i][j] = ls.get(i).get(j);
+            }
+        }
+        return ans;
+    }
+
+    private static long[] legacyLongArray(String input) {
+        List<String> ls = parseListString(input);
+        long[] ans = new long[ls.size()];
+        for (int i = 0; i < ans.length; i++) {
+            ans[i] = Long.parseLong(ls.get(i));
+        }
+        return ans;
+    }
+
+    private static long[][] legacyLongMatrix(String input) {
+        List<List<String>> ls = parseDoubleString(input);
+        long[][] ans = new long[ls.size()][];
+        for (int i = 0; i < ans.length; i++) {
+            ans[i] = new long[ls.get(i).size()];
+            for (int j = 0; j < ans[i].length; j++) {
+                ans[i][j] = Long.parseLong(ls.get(i).get(j));
+            }
+        }
+        return ans;
+    }
+
+    private static List<Integer> parseListInteger(String input) {
+        List<String> strings = parseListString(input);
+        ArrayList<Integer> ans = new ArrayList<>();
+        if ("[]".equals(input) || "{}".equals(input)) {
+            return ans;
+        }
+        for (String s : strings) {
+            try {
+                ans.add(Integer.parseInt(s));
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return ans;
+    }
+
+    private static List<List<Integer>> parseListDoubleInteger(String input) {
+        List<List<Integer>> ls = new ArrayList<>();
+        if ("[]".equals(input) || "[[]]".equals(input) || "{}".equals(input) || "{{}}".equals(input)) {
+            return new ArrayList<>();
+        }
+        List<List<String>> lists = parseDoubleString(input);
+        for (List<String> row : lists) {
+            if (row == null) {
+                continue;
+            }
+            List<Integer> temp = new ArrayList<>();
+            for (String s : row) {
+                if (s == null) continue;
+                try {
+                    temp.add(Integer.parseInt(s));
+                } catch (NumberFormatException e) {
+                    // ignore
+                }
+            }
+            ls.add(temp);
+        }
+        return ls;
+    }
+
+    private static List<String> parseListString(String input) {
+        List<String> ls = new ArrayList<>();
+        char[] flag = getFlag(input);
+        char startFlag = flag[0];
+        char endFlag = flag[1];
+        char interruptFlag = flag[2];
+        if (!input.contains(String.valueOf(startFlag)) && !input.contains(String.valueOf(endFlag))) {
+            ls.add(input);
+            return ls;
+        }
+        String nullStr = new String(new char[]{startFlag, endFlag});
+        if (nullStr.equals(input)) return ls;
+        StringBuilder sb = null;
+        char[] cs = input.toCharArray();
+        for (char c : cs) {
+            if (c == startFlag) {
+                sb = new StringBuilder();
+                continue;
+            }
+            if (sb == null) break;
+            if (c == endFlag) {
+                ls.add(sb.toString());
+                break;
+            } else if (c == interruptFlag) {
+                ls.add(sb.toString());
+                sb = new StringBuilder();
+            } else {
+                sb.append(c);
+            }
+        }
+        return ls;
+    }
+
+    private static List<List<String>> parseDoubleString(String input) {
+        StringBuilder sb = null;
+        char[] flag = getFlag(input);
+        char startFlag = flag[0];
+        char endFlag = flag[1];
+        char interruptFlag = flag[2];
+        List<List<String>> ls = new ArrayList<>();
+        List<String> temp = null;
+        Stack<Character> sk = new Stack<>();
+        char[] cs = input.toCharArray();
+        for (int i = 0; i < cs.length; i++) {
+            char c = cs[i];
+            if (c == startFlag) {
+                sk.push(c);
+                if (sk.size() == 2) temp = new ArrayList<>();
+            } else if (c == endFlag) {
+                if (!sk.isEmpty()) {
+                    sk.pop();
+                }
+                if (!sk.isEmpty() && temp != null) {
+                    if (sb != null) {
+                        temp.add(sb.toString());
+                    }
+                    ls.add(temp);
+                }
+                sb = null;
+                temp = null;
+            } else if (c == interruptFlag) {
+                if (temp != null && sb != null) {
+                    temp.add(sb.toString());
+                    sb = new StringBuilder();
+                }
+            } else {
+                if (sb == null) {
+                    sb = new StringBuilder();
+                }
+                sb.append(c);
+            }
+        }
+        return ls;
+    }
+
+    private static char[] getFlag(String input) {
+        char st = '\0';
+        for (int i = 0; i < input.length(); i++) {
+            if ((st = input.charAt(i)) != ' ' && st != '\0') {
+                break;
+            }
+        }
+        char[] flag = new char[4];
+        flag[3] = 'Y';
+        if (st == '{') {
+            flag[0] = '{';
+            flag[1] = '}';
+            flag[2] = ',';
+        } else if (st == '[') {
+            flag[0] = '[';
+            flag[1] = ']';
+            flag[2] = ',';
+        } else {
+            flag[3] = 'N';
+        }
+        return flag;
+    }
+}
@@ -0,0 +1,48 @@
+package compare;
+
+import code_generation.utils.TestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unordered comparison of nested answers: neither the order of the rows nor the order inside a row matters,
+ * but how often every value occurs does.
+ */
+public class UnorderedNested {
+
+    public static void main(String[] args) {
+        check(true, list(new int[]{3, 2}, new int[]{1, 2}), list(new int[]{1, 2}, new int[]{2, 3}));
+        check(true, list(new int[]{2, 1}, new int[]{1, 2}), list(new int[]{1, 2}, new int[]{1, 2}));
+        check(false, list(new int[]{1, 1}, new int[]{2, 2}), list(new int[]{1, 2}, new int[]{1, 2}));
+        check(false, list(new int[]{1, 2}), list(new int[]{1, 2}, new int[]{1, 2}));
+        check(true, new int[][]{{3, 2}, {1, 2}}, new int[][]{{1, 2}, {2, 3}}, "int[][]");
+        check(false, new int[][]{{1, 2, 2}}, new int[][]{{1, 1, 2}}, "int[][]");
+        check(true, new long[][]{{5L, 4L}, {}}, new long[][]{{}, {4L, 5L}}, "long[][]");
+        System.out.println("unordered nested : ok");
+    }
+
+    private static void check(boolean accepted, List<List<Integer>> result, List<List<Integer>> expect) {
+        check(accepted, result, expect, "List");
+    }
+
+    private static void check(boolean accepted, Object result, Object expect, String type) {
+        if (TestUtils.valid(result, expect, type, false) != accepted) {
+            throw new IllegalStateException(type + " " + Arrays.deepToString(new Object[]{result})
+                    + (accepted ? " should match " : " should not match ") + Arrays.deepToString(new Object[]{expect}));
+        }
+    }
+
+    private static List<List<Integer>> list(int[]... rows) {
+        List<List<Integer>> ans = new ArrayList<>();
+        for (int[] row : rows) {
+            List<Integer> t = new ArrayList<>();
+            for (int x : row) {
+                t.add(x);
+            }
+            ans.add(t);
+        }
+        return ans;
+    }
+}